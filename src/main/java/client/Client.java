@@ -1,6 +1,7 @@
 package client;
 
 import client.views.StartOptionsView;
+import commands.BasicCommand;
 import commands.Command;
 import commands.CommandFactory;
 import commands.server.PlayerLogin;
@@ -114,6 +115,10 @@ public class Client extends Task<Void> implements clientInterface/* implements R
             case WHO_ARE_YOU:
                 sendCommandToServer(new PlayerLogin(this.playerName));
                 break;
+            case PING:
+                // Lets the server know the connection is still alive.
+                sendCommandToServer(new BasicCommand(Command.CommandNames.PONG));
+                break;
             case TABLE_IS_FULL:
                 StartOptionsView.getInstance().setMessageText("Sorry you can not join the game. The table is full.");
                 break;
@@ -8,6 +8,7 @@ import client.views.components.CardView;
 import commands.client.ClientMessage;
 import commands.server.PassTurn;
 import commands.server.PlayerMove;
+import commands.server.Rematch;
 import interfaces.clientManagerInterface;
 import javafx.application.Platform;
 import javafx.scene.control.Alert;
@@ -59,6 +60,7 @@ public class ClientManager implements clientManagerInterface {
     private SelectionManager selectionManager = new SelectionManager();
     private Client client;
     private int currentTurn;
+    private int tableVersion;
     private CardView lastCardDrawn;
     private GameState gameState = GameState.JOIN_GAME;
 
@@ -206,8 +208,14 @@ public class ClientManager implements clientManagerInterface {
     /**
      * @param seatNumber
      * @param hand
+     * @param tableVersion
      */
-    public void dealHand(int seatNumber, CardSet hand) {
+    public void dealHand(int seatNumber, CardSet hand, int tableVersion) {
+        if (gameState == GameState.GAME_FINISHED) {
+            // A rematch, clear the table of the previous game.
+            resetGame();
+        }
+        this.tableVersion = tableVersion;
         for (Card card : hand.getCards()) {
             // 1 open card to the owner
             gameView.addCardToHand(seatNumber, card);
@@ -317,6 +325,12 @@ public class ClientManager implements clientManagerInterface {
     }
 
     public boolean endTurn(MouseEvent event) {
+        if (gameState == GameState.GAME_FINISHED) {
+            client.sendCommandToServer(new Rematch());
+            gameView.setMessage("Waiting for the other players to accept the rematch.");
+            return true;
+        }
+
         if (!canPlay()) {
             return false;
         }
@@ -342,7 +356,7 @@ public class ClientManager implements clientManagerInterface {
         List<CardSet> table = gameView.getPlayArea().getLastSnapshot();
 
         CardSet playedCards = prevHand.diff(lastHand);
-        PlayerMove move = new PlayerMove(gameView.getOwnerSeat(), playedCards, table);
+        PlayerMove move = new PlayerMove(gameView.getOwnerSeat(), tableVersion, playedCards, table);
 
         client.sendCommandToServer(move);
 
@@ -351,17 +365,17 @@ public class ClientManager implements clientManagerInterface {
 
     public void setWinner(int winnerSeatNumber) {
         if (gameView.getOwnerSeat() == winnerSeatNumber) {
-            gameView.setMessage("Hurray!!! You are the winner.");
+            gameView.setMessage("Hurray!!! You are the winner. Click on the deck for a rematch.");
         } else {
-            gameView.setMessage("You've lost the game, better luck next time :)");
+            gameView.setMessage("You've lost the game, better luck next time :) Click on the deck for a rematch.");
         }
         gameState = GameState.GAME_FINISHED;
     }
 
-    public void switchTurn(int seatNumber) {
+    public void switchTurn(int seatNumber, long timeLimit) {
         startTurn();
         currentTurn = seatNumber;
-        gameView.switchTurn(seatNumber);
+        gameView.switchTurn(seatNumber, timeLimit);
 
         if (lastCardDrawn != null) {
             lastCardDrawn.setNewcomer(true);
@@ -377,6 +391,8 @@ public class ClientManager implements clientManagerInterface {
     }
 
     public void playMove(PlayerMove move) {
+        // Every accepted move carries the new table version, later moves are built against it.
+        tableVersion = move.getTableVersion();
         if (move.getSeatNumber() != gameView.getOwnerSeat()) {
 
             List<CardSet> table = move.getTable();
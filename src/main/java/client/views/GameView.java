@@ -274,8 +274,9 @@ public class GameView extends View {
      * switches turn from current player to next player
      *
      * @param seatNumber
+     * @param timeLimit  milliseconds the player has to play, 0 if there's no limit.
      */
-    public void switchTurn(int seatNumber) {
+    public void switchTurn(int seatNumber, long timeLimit) {
         if (gameMode == constants.GameMode.PROACTIVE) {
             // All players are active in turnless mode.
             for (int i = 1; i <= playerCount; i++) {
@@ -287,7 +288,9 @@ public class GameView extends View {
                 seats.getPlayer(i).setActive(i == seatNumber);
             }
 
-            if (seatNumber == getOwnerSeat()) {
+            if (seatNumber == getOwnerSeat() && timeLimit > 0) {
+                setMessage("It's your turn, you have " + timeLimit / 1000 + " seconds. Click on the deck when you're done.");
+            } else if (seatNumber == getOwnerSeat()) {
                 setMessage("It's your turn. Click on the deck when you're done.");
             } else {
                 setMessage("Please wait for your turn.");
@@ -33,6 +33,8 @@ public class StartOptionsView extends View {
     private ToggleButton modeReactive;
     @FXML
     private ToggleButton modeProactive;
+    @FXML
+    private ToggleButton modeVirtualThreads;
 
     @FXML
     private TabPane loginTabs;
@@ -81,6 +83,8 @@ public class StartOptionsView extends View {
     private void setServerMode(Toggle selectedMode) {
         if (selectedMode == modeReactive) {
             serverMode = constants.GameMode.REACTIVE;
+        } else if (selectedMode == modeVirtualThreads) {
+            serverMode = constants.GameMode.VIRTUAL_THREADS;
         } else {
             serverMode = constants.GameMode.PROACTIVE;
         }
@@ -4,6 +4,7 @@ import commands.client.*;
 import commands.server.PassTurn;
 import commands.server.PlayerLogin;
 import commands.server.PlayerMove;
+import commands.server.Rematch;
 import commands.server.WinnerCommand;
 import server.models.Player;
 
@@ -225,6 +226,8 @@ public abstract class Command {
         PASS_TURN(SERVER_COMMAND, PassTurn.class),
         PLAYER_LOGIN(SERVER_COMMAND, PlayerLogin.class),
         SET_WINNER(SERVER_COMMAND, WinnerCommand.class),
+        REMATCH(SERVER_COMMAND, Rematch.class),
+        PONG(SERVER_COMMAND),
 
         //      CLIENT_COMMANDS
         INTRODUCE_PLAYER(CLIENT_COMMAND, IntroducePlayer.class),
@@ -233,6 +236,7 @@ public abstract class Command {
         SWITCH_TURN(CLIENT_COMMAND, SwitchTurn.class),
         WHO_ARE_YOU(CLIENT_COMMAND),
         DRAW_CARD(CLIENT_COMMAND, DrawCard.class),
+        PING(CLIENT_COMMAND),
 
         REMOVE_PLAYER(CLIENT_COMMAND, RemovePlayer.class),
         CLIENT_MESSAGE(CLIENT_COMMAND, ClientMessage.class);
@@ -13,7 +13,7 @@ public abstract class ClientCommand extends Command {
     /**
      * PROTECTS
      */
-    protected final ClientManager manager = ClientManager.getInstance();
+    protected ClientManager manager;
 
     /**
      * CONSTRUCTOR
@@ -35,9 +35,11 @@ public abstract class ClientCommand extends Command {
 
     /**
      * Runs the command inside the main UI thread.
+     * The manager is only looked up here, the server builds client commands without starting the client UI.
      */
     @Override
     public void execute() {
+        manager = ClientManager.getInstance();
         Platform.runLater(this::doExecute);
     }
 
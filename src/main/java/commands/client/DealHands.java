@@ -1,17 +1,42 @@
 package commands.client;
 
 import server.models.CardSet;
+import server.models.PackedCardSet;
+import server.models.cards.Card;
+import server.models.cards.CardRegistry;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * When the game starts server deals all the hands and send each player know his hand with this command.
  */
 public class DealHands extends ClientCommand {
 
+    /**
+     * PRIVATE STATICS
+     */
+    private static final byte[] PREFIX = (CommandNames.DEAL_HANDS.name() + PARAMETER_SEPERATOR)
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[][] CARD_NAMES = new byte[CardRegistry.CODE_COUNT][];
+    private static final int MAX_CARD_NAME_LENGTH;
+    private static final int MAX_INT_LENGTH = String.valueOf(Integer.MIN_VALUE).length();
+
+    static {
+        int maxLength = 0;
+        for (int code = 0; code < CardRegistry.CODE_COUNT; code++) {
+            CARD_NAMES[code] = CardRegistry.get(code).toString().getBytes(StandardCharsets.US_ASCII);
+            maxLength = Math.max(maxLength, CARD_NAMES[code].length);
+        }
+        MAX_CARD_NAME_LENGTH = maxLength;
+    }
+
     /**
      * PRIVATES
      */
     private int seatNumber;
     private CardSet hand;
+    private int tableVersion;
 
     /**
      * CONSTRUCTOR
@@ -23,16 +48,19 @@ public class DealHands extends ClientCommand {
     /**
      * CONSTRUCTOR
      *
-     * @param seatNumber the seat number of the player
-     * @param hand       the cards dealt to the player.
+     * @param seatNumber   the seat number of the player
+     * @param hand         the cards dealt to the player.
+     * @param tableVersion the version of the table moves should be built against.
      */
-    public DealHands(int seatNumber, CardSet hand) {
+    public DealHands(int seatNumber, CardSet hand, int tableVersion) {
         this();
         this.seatNumber = seatNumber;
         this.hand = hand;
+        this.tableVersion = tableVersion;
 
         this.addParameter(seatNumber);
         this.addParameter(hand);
+        this.addParameter(tableVersion);
     }
 
     /**
@@ -44,6 +72,52 @@ public class DealHands extends ClientCommand {
         super(cmdString);
     }
 
+    /**
+     * @param cardCount
+     * @return number of bytes encode writes at most for a hand of cardCount cards.
+     */
+    public static int maxEncodedSize(int cardCount) {
+        return PREFIX.length + 2 * (MAX_INT_LENGTH + PARAMETER_SEPERATOR.length())
+                + cardCount * (MAX_CARD_NAME_LENGTH + 1) + EOC.length();
+    }
+
+    /**
+     * Writes the same bytes as serializing a DealHands built from the given hand, without building the command.
+     *
+     * @param buffer       buffer with at least maxEncodedSize bytes remaining.
+     * @param seatNumber   the seat number of the player
+     * @param hand         the cards dealt to the player.
+     * @param tableVersion the version of the table moves should be built against.
+     */
+    public static void encode(ByteBuffer buffer, int seatNumber, PackedCardSet hand, int tableVersion) {
+        buffer.put(PREFIX);
+        putAscii(buffer, Integer.toString(seatNumber));
+        putAscii(buffer, PARAMETER_SEPERATOR);
+
+        boolean firstCard = true;
+        for (Card card : hand.getCards()) {
+            if (!firstCard) {
+                buffer.put((byte) ',');
+            }
+            buffer.put(CARD_NAMES[CardRegistry.codeOf(card)]);
+            firstCard = false;
+        }
+
+        putAscii(buffer, PARAMETER_SEPERATOR);
+        putAscii(buffer, Integer.toString(tableVersion));
+        putAscii(buffer, EOC);
+    }
+
+    /**
+     * @param buffer
+     * @param text
+     */
+    private static void putAscii(ByteBuffer buffer, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
     /**
      * @param commandStr
      */
@@ -51,12 +125,13 @@ public class DealHands extends ClientCommand {
     public void doParse(String commandStr) {
         seatNumber = scanner.nextInt();
         hand = new CardSet(scanner.next());
+        tableVersion = scanner.nextInt();
     }
 
     /**
      *
      */
     public void doExecute() {
-        manager.dealHand(seatNumber, hand);
+        manager.dealHand(seatNumber, hand, tableVersion);
     }
 }
@@ -9,6 +9,10 @@ public class SwitchTurn extends ClientCommand {
      */
     private int seatNumber;
 
+    /**
+     * Milliseconds the player has to play, 0 if the turn has no time limit.
+     */
+    private long timeLimit;
 
     /**
      * CONSTRUCTOR
@@ -32,9 +36,23 @@ public class SwitchTurn extends ClientCommand {
      * @param seatNumber the seat number of the turn
      */
     public SwitchTurn(int seatNumber) {
+        this(seatNumber, 0);
+    }
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param seatNumber the seat number of the turn
+     * @param timeLimit  milliseconds before the turn is passed automatically, 0 for no limit.
+     */
+    public SwitchTurn(int seatNumber, long timeLimit) {
         this();
         this.seatNumber = seatNumber;
+        this.timeLimit = timeLimit;
         addParameter(seatNumber);
+        if (timeLimit > 0) {
+            addParameter(timeLimit);
+        }
     }
 
     /**
@@ -43,6 +61,16 @@ public class SwitchTurn extends ClientCommand {
     @Override
     public void doParse(String commandStr) {
         this.seatNumber = scanner.nextInt();
+        if (scanner.hasNextLong()) {
+            this.timeLimit = scanner.nextLong();
+        }
+    }
+
+    /**
+     * @return
+     */
+    public long getTimeLimit() {
+        return timeLimit;
     }
 
     /**
@@ -50,6 +78,6 @@ public class SwitchTurn extends ClientCommand {
      */
     @Override
     public void doExecute() {
-        manager.switchTurn(seatNumber);
+        manager.switchTurn(seatNumber, timeLimit);
     }
 }
@@ -14,6 +14,7 @@ public class PlayerMove extends BasicCommand {
      * PROTECTS
      */
     protected int seatNumber;
+    protected int tableVersion;
     protected List<CardSet> table;
     protected CardSet playedCards;
 
@@ -38,17 +39,20 @@ public class PlayerMove extends BasicCommand {
     /**
      * CONSTRUCTOR
      *
-     * @param seatNumber  the seat number of the player who made the move
-     * @param playedCards the cards player puts on the table from his hand.
-     * @param table       resulting sets of cards that are on the table after the proposed move has been made.
+     * @param seatNumber   the seat number of the player who made the move
+     * @param tableVersion the version of the table the move was built against.
+     * @param playedCards  the cards player puts on the table from his hand.
+     * @param table        resulting sets of cards that are on the table after the proposed move has been made.
      */
-    public PlayerMove(int seatNumber, CardSet playedCards, List<CardSet> table) {
+    public PlayerMove(int seatNumber, int tableVersion, CardSet playedCards, List<CardSet> table) {
         this();
         this.seatNumber = seatNumber;
+        this.tableVersion = tableVersion;
         this.table = table;
         this.playedCards = playedCards;
 
         this.addParameter(seatNumber);
+        this.addParameter(tableVersion);
         this.addParameter(playedCards);
         for (CardSet set : table) {
             this.addParameter(set.toString());
@@ -63,6 +67,11 @@ public class PlayerMove extends BasicCommand {
     }
 
 
+    public int getTableVersion() {
+        return tableVersion;
+    }
+
+
     public List<CardSet> getTable() {
         return table;
     }
@@ -73,6 +82,19 @@ public class PlayerMove extends BasicCommand {
     }
 
 
+    /**
+     * SETTERS
+     */
+    /**
+     * Server stamps the accepted move with the new table version before broadcasting it.
+     *
+     * @param tableVersion
+     */
+    public void setTableVersion(int tableVersion) {
+        this.tableVersion = tableVersion;
+        parameters.set(1, tableVersion);
+    }
+
     /**
      * @param commandStr
      */
@@ -87,6 +109,8 @@ public class PlayerMove extends BasicCommand {
             if (count == 0) {
                 seatNumber = Integer.parseInt(param.toString());
             } else if (count == 1) {
+                tableVersion = Integer.parseInt(param.toString());
+            } else if (count == 2) {
                 playedCards = new CardSet(param.toString());
             } else {
                 table.add(new CardSet(param.toString()));
@@ -0,0 +1,30 @@
+package commands.server;
+
+/**
+ * When a game is over a seated player asks for a new game at the same table, without reconnecting.
+ * The new game starts once every player at the table has asked for it.
+ */
+public class Rematch extends ServerCommand {
+    /**
+     *
+     */
+    public Rematch() {
+        super(CommandNames.REMATCH);
+    }
+
+    /**
+     * @param commandStr
+     */
+    @Override
+    public void doParse(String commandStr) {
+        // No parameter to parse.
+    }
+
+    /**
+     * Just call the relative method.
+     */
+    @Override
+    protected void doExecute() {
+        machiavelli.requestRematch(getPlayer());
+    }
+}
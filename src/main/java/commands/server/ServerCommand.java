@@ -5,14 +5,14 @@ import server.models.Machiavelli;
 
 /**
  * Base class for all server commands.
- * This class just offers a Machiavelli instance for easy access from within subclasses.
+ * This class just offers the game of the sending player for easy access from within subclasses.
  * And implements abstract execute method.
  */
 public abstract class ServerCommand extends Command {
     /**
      * PROTECTS
      */
-    protected Machiavelli machiavelli = Machiavelli.getInstance();
+    protected Machiavelli machiavelli;
 
     /**
      * CONSTRUCTOR
@@ -33,10 +33,11 @@ public abstract class ServerCommand extends Command {
     }
 
     /**
-     * Just call doExecute to let subclass do it's job.
+     * Bind the command to the game of the player who sent it, then call doExecute to let subclass do it's job.
      */
     @Override
     public void execute() {
+        machiavelli = getPlayer().getGame();
         doExecute();
     }
 }
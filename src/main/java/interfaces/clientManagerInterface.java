@@ -23,7 +23,7 @@ public interface clientManagerInterface {
 
     public void loginServer(String ip, int port, String name);
 
-    public void dealHand(int seatNumber, CardSet hand);
+    public void dealHand(int seatNumber, CardSet hand, int tableVersion);
 
     public void introducePlayer(String playerName, int playerId, int seatNumber);
 
@@ -33,7 +33,7 @@ public interface clientManagerInterface {
 
     public boolean endTurn(MouseEvent event);
 
-    public void switchTurn(int seatNumber);
+    public void switchTurn(int seatNumber, long timeLimit);
 
     public void drawCard(int seatNumber, Card card);
 
@@ -0,0 +1,270 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of the direct buffers the server reads client commands into and encodes outgoing commands into.
+ * <p>
+ * Buffers come in a few size classes and every request gets the smallest class it fits in. A class that runs dry
+ * carves a new slab, one large direct allocation, into buffers of its size, so the number of direct allocations
+ * grows with the slabs and not with the connections. Requests larger than the largest class, or made once all the
+ * slabs are carved, get a heap buffer of their own that is left to the garbage collector.
+ * Buffers can be acquired and released from any thread.
+ * <p>
+ * With leak detection on, set through {@link #LEAK_DETECTION_PROPERTY} in test builds, the pool remembers where
+ * every buffer in use was acquired: releasing a buffer that isn't in use fails, and {@link #checkForLeaks()} reports
+ * the buffers that were never released.
+ */
+public class BufferPool {
+    /********************************
+     ******** PUBLIC STATICS ********
+     ********************************/
+    public static final int BUFFER_SIZE = 4 * 1024;
+    public static final int MAX_POOLED_SIZE = 16 * 1024;
+    public static final int SLAB_SIZE = 256 * 1024;
+    public static final String LEAK_DETECTION_PROPERTY = "server.BufferPool.leakDetection";
+
+    /**
+     * PRIVATE STATICS
+     */
+    private static final int[] SIZE_CLASSES = {256, 1024, BUFFER_SIZE, MAX_POOLED_SIZE};
+    private static final int MAX_SLAB_COUNT = 256;
+
+    private static BufferPool ourInstance = new BufferPool();
+
+    public static BufferPool getInstance() {
+        return ourInstance;
+    }
+
+    /********************************
+     ******** PRIVATES **************
+     ********************************/
+    private final SizeClass[] sizeClasses = new SizeClass[SIZE_CLASSES.length];
+    private final int maxSlabCount;
+    private final AtomicInteger slabCount = new AtomicInteger();
+    private final AtomicLong unpooledAllocationCount = new AtomicLong();
+
+    /**
+     * Acquire site of every buffer in use, by identity. Null unless leak detection is on.
+     */
+    private final Map<ByteBuffer, Throwable> buffersInUse;
+
+    /**
+     * CONSTRUCTOR
+     * Package private so that tests can use their own pool.
+     */
+    BufferPool() {
+        this(MAX_SLAB_COUNT, Boolean.getBoolean(LEAK_DETECTION_PROPERTY));
+    }
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param maxSlabCount  slabs carved at most, shared by all the size classes.
+     * @param leakDetection whether to track the buffers in use.
+     */
+    BufferPool(int maxSlabCount, boolean leakDetection) {
+        if (maxSlabCount < 0) {
+            throw new IllegalArgumentException("Max slab count can't be negative");
+        }
+        this.maxSlabCount = maxSlabCount;
+        this.buffersInUse = leakDetection ? Collections.synchronizedMap(new IdentityHashMap<>()) : null;
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            sizeClasses[i] = new SizeClass(SIZE_CLASSES[i]);
+        }
+    }
+
+    /**
+     * @param capacity minimum capacity.
+     * @return an empty buffer, to be handed back with {@link #release(ByteBuffer)} once written.
+     */
+    public ByteBuffer acquire(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity can't be negative");
+        }
+        SizeClass sizeClass = sizeClassOf(capacity);
+        ByteBuffer buffer = sizeClass == null ? null : sizeClass.poll();
+        while (buffer == null && sizeClass != null && carveSlab(sizeClass)) {
+            buffer = sizeClass.poll();
+        }
+        if (buffer == null) {
+            unpooledAllocationCount.incrementAndGet();
+            return ByteBuffer.allocate(capacity);
+        }
+
+        buffer.clear();
+        if (buffersInUse != null) {
+            buffersInUse.put(buffer, new Throwable("Buffer acquired here"));
+        }
+        return buffer;
+    }
+
+    /**
+     * Takes the buffer back. The caller must not touch it, or any view of it, afterwards.
+     * Buffers that don't come from the pool are ignored.
+     *
+     * @param buffer
+     * @throws IllegalStateException with leak detection on, if the buffer isn't in use.
+     */
+    public void release(ByteBuffer buffer) throws IllegalStateException {
+        SizeClass sizeClass = buffer.isDirect() ? sizeClassOf(buffer.capacity()) : null;
+        if (sizeClass == null || sizeClass.bufferSize != buffer.capacity()) {
+            return;
+        }
+        if (buffersInUse != null && buffersInUse.remove(buffer) == null) {
+            throw new IllegalStateException("Buffer isn't in use, it was released twice or doesn't come from the pool");
+        }
+        sizeClass.add(buffer);
+    }
+
+    /**
+     * @throws IllegalStateException if buffers are still in use, caused by where the first of them was acquired.
+     *                               Never thrown with leak detection off.
+     */
+    public void checkForLeaks() throws IllegalStateException {
+        if (buffersInUse == null) {
+            return;
+        }
+        synchronized (buffersInUse) {
+            if (!buffersInUse.isEmpty()) {
+                throw new IllegalStateException(buffersInUse.size() + " buffers were never released",
+                        buffersInUse.values().iterator().next());
+            }
+        }
+    }
+
+    /***************************************
+     *************** METRICS **************
+     **************************************/
+
+    /**
+     * @return number of buffers ready to be reused.
+     */
+    public int freeBufferCount() {
+        int count = 0;
+        for (SizeClass sizeClass : sizeClasses) {
+            count += sizeClass.freeCount.get();
+        }
+        return count;
+    }
+
+    /**
+     * @return number of pooled buffers that have been acquired and not released yet.
+     */
+    public int inUseBufferCount() {
+        int count = 0;
+        for (SizeClass sizeClass : sizeClasses) {
+            count += sizeClass.inUseCount.get();
+        }
+        return count;
+    }
+
+    /**
+     * @return bytes of the pooled buffers in use.
+     */
+    public long inUseBytes() {
+        long bytes = 0;
+        for (SizeClass sizeClass : sizeClasses) {
+            bytes += (long) sizeClass.inUseCount.get() * sizeClass.bufferSize;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return direct memory carved into buffers so far, in bytes.
+     */
+    public long slabBytes() {
+        return (long) slabCount.get() * SLAB_SIZE;
+    }
+
+    public int slabCount() {
+        return slabCount.get();
+    }
+
+    /**
+     * @return number of requests that got a heap buffer, because they were too large or the slabs ran out.
+     */
+    public long unpooledAllocationCount() {
+        return unpooledAllocationCount.get();
+    }
+
+    /****** PRIVATES ******/
+
+    /**
+     * @param capacity
+     * @return the smallest size class the capacity fits in, null if it is too large for all of them.
+     */
+    private SizeClass sizeClassOf(int capacity) {
+        for (SizeClass sizeClass : sizeClasses) {
+            if (capacity <= sizeClass.bufferSize) {
+                return sizeClass;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cuts a new slab into buffers of the size class.
+     *
+     * @param sizeClass
+     * @return false if all the slabs have been carved already.
+     */
+    private synchronized boolean carveSlab(SizeClass sizeClass) {
+        if (sizeClass.freeCount.get() > 0) {
+            // Another thread carved or released one in the meantime.
+            return true;
+        }
+        if (slabCount.get() >= maxSlabCount) {
+            return false;
+        }
+        slabCount.incrementAndGet();
+        ByteBuffer slab = ByteBuffer.allocateDirect(SLAB_SIZE);
+        for (int offset = 0; offset + sizeClass.bufferSize <= SLAB_SIZE; offset += sizeClass.bufferSize) {
+            sizeClass.free.add(slab.slice(offset, sizeClass.bufferSize));
+            sizeClass.freeCount.incrementAndGet();
+        }
+        return true;
+    }
+
+    /**
+     * Free buffers of one size, the last one released is reused first while it is still in the cache.
+     */
+    private static final class SizeClass {
+        private final int bufferSize;
+        private final Deque<ByteBuffer> free = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger freeCount = new AtomicInteger();
+        private final AtomicInteger inUseCount = new AtomicInteger();
+
+        private SizeClass(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        /**
+         * @return a free buffer or null if there is none.
+         */
+        private ByteBuffer poll() {
+            ByteBuffer buffer = free.pollFirst();
+            if (buffer != null) {
+                freeCount.decrementAndGet();
+                inUseCount.incrementAndGet();
+            }
+            return buffer;
+        }
+
+        /**
+         * @param buffer a buffer of this size that was in use.
+         */
+        private void add(ByteBuffer buffer) {
+            inUseCount.decrementAndGet();
+            freeCount.incrementAndGet();
+            free.addFirst(buffer);
+        }
+    }
+}
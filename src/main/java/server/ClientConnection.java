@@ -0,0 +1,29 @@
+package server;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Outgoing side of a client connection, whatever the server mode.
+ * Sending never blocks the caller: the connection queues what the client can't take right away.
+ */
+public interface ClientConnection {
+    /**
+     * The connection owns the buffer from now on.
+     *
+     * @param buffer flipped buffer.
+     */
+    void send(ByteBuffer buffer);
+
+    /**
+     * Sends a command shared with other players.
+     * The connection keeps a reference to the buffer until its view has been written.
+     *
+     * @param shared
+     */
+    void send(SharedBuffer shared);
+
+    /**
+     * @return bytes queued for the client and not written yet.
+     */
+    long queuedByteCount();
+}
@@ -5,16 +5,17 @@ import server.models.Player;
 import server.proactor.SessionState;
 import server.proactor.WriteCompletionHandler;
 
-import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousSocketChannel;
-import java.nio.channels.SocketChannel;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
 
 public class ClientMessageSender {
-    private Map<Player, SocketChannel> playerChannels = new HashMap<>();
-    private Map<Player, AsynchronousSocketChannel> playerAsyncChannels = new HashMap<>();
+    final static Logger log = Logger.getLogger(String.valueOf(ClientMessageSender.class));
+
+    private Map<Player, ClientConnection> playerConnections = new ConcurrentHashMap<>();
+    private Map<Player, AsynchronousSocketChannel> playerAsyncChannels = new ConcurrentHashMap<>();
 
     private static ClientMessageSender ourInstance = new ClientMessageSender();
 
@@ -25,8 +26,12 @@ public class ClientMessageSender {
     private ClientMessageSender() {
     }
 
-    public void registerPlayer(Player player, SocketChannel clientSocket) {
-        playerChannels.put(player, clientSocket);
+    /**
+     * @param player
+     * @param connection connection of the reactive or the virtual thread mode.
+     */
+    public void registerPlayer(Player player, ClientConnection connection) {
+        playerConnections.put(player, connection);
     }
 
     public void registerPlayer(Player player, AsynchronousSocketChannel clientSocket) {
@@ -34,46 +39,94 @@ public class ClientMessageSender {
     }
 
     public void removePlayer(Player player) {
-        playerChannels.remove(player);
+        playerConnections.remove(player);
         playerAsyncChannels.remove(player);
     }
 
+    /**
+     * @param player
+     * @return bytes queued for the player and not written yet, 0 if the player isn't connected.
+     */
+    public long queuedByteCount(Player player) {
+        ClientConnection connection = playerConnections.get(player);
+        if (connection != null) {
+            return connection.queuedByteCount();
+        }
+
+        AsynchronousSocketChannel asyncClientSocket = playerAsyncChannels.get(player);
+        if (asyncClientSocket != null) {
+            return WriteCompletionHandler.getHandler(asyncClientSocket).queuedByteCount();
+        }
+        return 0;
+    }
+
     public void sendCommand(Player player, String command) {
-        if (playerChannels.containsKey(player)) {
-            SocketChannel clientSocket = playerChannels.get(player);
-            sendCommand(clientSocket, command);
+        ClientConnection connection = playerConnections.get(player);
+        if (connection != null) {
+            sendCommand(connection, command);
+        }
+
+        AsynchronousSocketChannel asyncClientSocket = playerAsyncChannels.get(player);
+        if (asyncClientSocket != null) {
+            sendCommand(asyncClientSocket, command);
+        }
+    }
+
+    /**
+     * Sends a command encoded once for several players. The sender keeps its own reference to the buffer.
+     *
+     * @param player
+     * @param shared
+     */
+    public void sendShared(Player player, SharedBuffer shared) {
+        ClientConnection connection = playerConnections.get(player);
+        if (connection != null) {
+            connection.send(shared);
         }
 
-        if (playerAsyncChannels.containsKey(player)) {
-            AsynchronousSocketChannel clientSocket = playerAsyncChannels.get(player);
-            sendCommand(clientSocket, command);
+        AsynchronousSocketChannel asyncClientSocket = playerAsyncChannels.get(player);
+        if (asyncClientSocket != null) {
+            WriteCompletionHandler.getHandler(asyncClientSocket).write(shared, new SessionState());
         }
     }
 
-    public static void sendCommand(SocketChannel clientSocket, String command) {
-        ByteBuffer buffer = ByteBuffer.wrap(command.getBytes());
-        System.out.println();
-        System.out.println("SERVER: sending cmd(" + buffer.remaining() + "," + command.length() + ")" + command);
-
-        try {
-            while (buffer.hasRemaining()) {
-                int len = clientSocket.write(buffer);
-                if (len < 0) {
-                    throw new IOException("Client connection lost!");
-                }
-                System.out.println("SERVER: written" + len + "bytes");
-            }
-            buffer.clear();
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Sends each player its own slice of one encoded batch. The slices share the batch, nothing is copied.
+     * The sender keeps its own reference to the batch.
+     *
+     * @param players players in the order of their slices.
+     * @param batch   the commands of all the players back to back.
+     * @param ends    end position of every player's slice in the batch.
+     */
+    public void sendBatch(List<Player> players, SharedBuffer batch, int[] ends) {
+        int start = 0;
+        for (int i = 0; i < players.size(); i++) {
+            SharedBuffer slice = batch.slice(start, ends[i]);
+            sendShared(players.get(i), slice);
+            slice.release();
+            start = ends[i];
         }
     }
 
     /**
+     * Never blocks: what the client can't take right away is queued on its session.
+     * The command is encoded into a pooled direct buffer, which goes back to the pool once written.
+     *
+     * @param connection
      * @param command
      */
-    public static void sendCommand(SocketChannel clientSocket, Command.CommandNames command) {
-        sendCommand(clientSocket, command.toString());
+    public static void sendCommand(ClientConnection connection, String command) {
+        SharedBuffer encoded = SharedBuffer.encode(command);
+        log.fine(() -> "sending cmd(" + encoded.size() + "," + command.length() + ")" + command);
+        connection.send(encoded);
+        encoded.release();
+    }
+
+    /**
+     * @param command
+     */
+    public static void sendCommand(ClientConnection connection, Command.CommandNames command) {
+        sendCommand(connection, command.toString());
     }
 
     public static void sendCommand(AsynchronousSocketChannel clientSocket, Command.CommandNames command) {
@@ -83,8 +136,9 @@ public class ClientMessageSender {
     public static void sendCommand(AsynchronousSocketChannel clientSocket, String command) {
         // Echo the message back to client
         WriteCompletionHandler writeCompletionHandler = WriteCompletionHandler.getHandler(clientSocket);
-        ByteBuffer outputBuffer = ByteBuffer.wrap(command.toString().getBytes());
-        
-        writeCompletionHandler.write(outputBuffer, new SessionState());
+        SharedBuffer encoded = SharedBuffer.encode(command);
+
+        writeCompletionHandler.write(encoded, new SessionState());
+        encoded.release();
     }
 }
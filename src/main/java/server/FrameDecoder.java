@@ -0,0 +1,130 @@
+package server;
+
+import commands.Command;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Splits the byte stream of one connection into command strings.
+ * <p>
+ * A frame is everything up to and including {@link Command#EOC}. A read may carry part of a frame, several frames
+ * or both; the bytes of an unfinished frame are kept until the rest arrives. The frame bytes are accumulated in
+ * an array that is reused for every frame, so the only allocation per frame is the command string itself.
+ * Whitespace around a frame is dropped, the way the server used to trim whole reads.
+ */
+public class FrameDecoder {
+    /********************************
+     ******** PUBLIC STATICS ********
+     ********************************/
+    public static final int DEFAULT_MAX_FRAME_SIZE = 16 * 1024;
+
+    /**
+     * PRIVATE STATICS
+     */
+    private static final byte EOC = (byte) Command.EOC.charAt(0);
+    private static final int INITIAL_CAPACITY = 256;
+
+    /********************************
+     ******** PRIVATES **************
+     ********************************/
+    private final int maxFrameSize;
+    private final Consumer<String> frameConsumer;
+    private byte[] frame;
+    private int length;
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param frameConsumer called with every complete frame, EOC included.
+     */
+    public FrameDecoder(Consumer<String> frameConsumer) {
+        this(DEFAULT_MAX_FRAME_SIZE, frameConsumer);
+    }
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param maxFrameSize  longest frame accepted, in bytes with the EOC.
+     * @param frameConsumer called with every complete frame, EOC included.
+     */
+    public FrameDecoder(int maxFrameSize, Consumer<String> frameConsumer) {
+        if (maxFrameSize <= 0) {
+            throw new IllegalArgumentException("Max frame size must be positive");
+        }
+        this.maxFrameSize = maxFrameSize;
+        this.frameConsumer = frameConsumer;
+        this.frame = new byte[Math.min(INITIAL_CAPACITY, maxFrameSize)];
+    }
+
+    /**
+     * Consumes all the remaining bytes of the buffer and passes on the frames they complete.
+     *
+     * @param buffer buffer ready to be read, i.e. flipped after the socket read.
+     * @throws IOException if a frame grows beyond the max frame size, the connection should be dropped.
+     */
+    public void decode(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (length == 0 && isWhitespace(b)) {
+                continue;
+            }
+            if (length == maxFrameSize) {
+                length = 0;
+                throw new IOException("Frame is longer than " + maxFrameSize + " bytes");
+            }
+            if (length == frame.length) {
+                grow();
+            }
+            frame[length++] = b;
+
+            if (b == EOC) {
+                emitFrame();
+            }
+        }
+    }
+
+    /**
+     * @return number of bytes of the unfinished frame.
+     */
+    public int pendingByteCount() {
+        return length;
+    }
+
+    /****** PRIVATES ******/
+
+    /**
+     * Passes on the frame that just got its EOC, empty frames are dropped.
+     */
+    private void emitFrame() {
+        int end = length - 1;
+        while (end > 0 && isWhitespace(frame[end - 1])) {
+            end--;
+        }
+        length = 0;
+        if (end == 0) {
+            return;
+        }
+        frame[end] = EOC;
+        frameConsumer.accept(new String(frame, 0, end + 1, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Doubles the frame array, up to the max frame size.
+     */
+    private void grow() {
+        byte[] grown = new byte[Math.min(frame.length * 2, maxFrameSize)];
+        System.arraycopy(frame, 0, grown, 0, length);
+        frame = grown;
+    }
+
+    /**
+     * @param b
+     * @return true for the bytes String.trim() drops.
+     */
+    private static boolean isWhitespace(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+}
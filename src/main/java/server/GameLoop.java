@@ -0,0 +1,159 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serial executor that owns the state of one game.
+ * <p>
+ * Tasks are queued in a lock-free mailbox and run one at a time, in submission order, on a thread of a pool
+ * shared by all the games. At most one thread drains a mailbox at any moment, so the game state needs no locks,
+ * while different games run in parallel on different cores. Submitting never blocks the I/O threads.
+ * <p>
+ * A task can defer work to the moment it is done with {@link #runAfterTask(Runnable)}. This is how the commands a
+ * task sends to a client are written together, with one system call.
+ */
+public class GameLoop implements Executor {
+    /********************************
+     ******** PRIVATE STATICS *******
+     ********************************/
+    /**
+     * A loop hands its thread back to the pool after this many tasks so a busy game can't starve the others.
+     */
+    private static final int MAX_TASKS_PER_RUN = 64;
+
+    private static final ThreadLocal<GameLoop> currentLoop = new ThreadLocal<>();
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ExecutorService sharedPool = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), task -> {
+                Thread thread = new Thread(task, "game-loop-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /********************************
+     ******** PRIVATES **************
+     ********************************/
+    private final Executor pool;
+    private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    /**
+     * Only touched by the thread running the loop.
+     */
+    private final List<Runnable> afterTaskActions = new ArrayList<>();
+
+    /**
+     * CONSTRUCTOR
+     */
+    public GameLoop() {
+        this(sharedPool);
+    }
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param pool threads that drain the mailbox.
+     */
+    public GameLoop(Executor pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Queues the task behind the ones already submitted to this loop.
+     *
+     * @param task
+     */
+    @Override
+    public void execute(Runnable task) {
+        mailbox.add(task);
+        schedule();
+    }
+
+    /**
+     * @return the loop running a task on the calling thread, null outside of game loops.
+     */
+    public static GameLoop current() {
+        return currentLoop.get();
+    }
+
+    /**
+     * Runs the action once the current task of this loop is done, failed or not.
+     * May only be called from a task of this loop, see {@link #current()}.
+     *
+     * @param action
+     */
+    public void runAfterTask(Runnable action) {
+        afterTaskActions.add(action);
+    }
+
+    /**
+     * @return number of tasks waiting in the mailbox.
+     */
+    public int pendingTaskCount() {
+        return mailbox.size();
+    }
+
+    /****** PRIVATES ******/
+
+    /**
+     * Hands the loop to the pool unless it is already scheduled or running.
+     */
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            pool.execute(this::drain);
+        }
+    }
+
+    /**
+     * Runs the queued tasks, then releases the loop. A task submitted between the last poll and the release
+     * would otherwise be stranded, so the mailbox is checked once more afterwards.
+     */
+    private void drain() {
+        Runnable task;
+        int taskCount = 0;
+        // The pool may be a caller-runs executor, in which case this loop is nested in the task of another one.
+        GameLoop outerLoop = currentLoop.get();
+        currentLoop.set(this);
+        try {
+            while (taskCount < MAX_TASKS_PER_RUN && (task = mailbox.poll()) != null) {
+                run(task);
+                for (int i = 0; i < afterTaskActions.size(); i++) {
+                    run(afterTaskActions.get(i));
+                }
+                afterTaskActions.clear();
+                taskCount++;
+            }
+        } finally {
+            if (outerLoop == null) {
+                currentLoop.remove();
+            } else {
+                currentLoop.set(outerLoop);
+            }
+        }
+
+        scheduled.set(false);
+        if (!mailbox.isEmpty()) {
+            schedule();
+        }
+    }
+
+    /**
+     * @param task
+     */
+    private static void run(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            // A failing command must not stop the game.
+            e.printStackTrace();
+        }
+    }
+}
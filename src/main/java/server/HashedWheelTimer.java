@@ -0,0 +1,332 @@
+package server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Timer for large numbers of coarse deadlines, such as the turn deadline of every table.
+ * <p>
+ * Deadlines are hashed into the buckets of a wheel that a single thread advances one bucket per tick.
+ * Scheduling and cancelling are O(1): both only enqueue the timeout, the timer thread links it into or out of
+ * its bucket on the next tick. A timeout fires within one tick after its deadline.
+ * <p>
+ * Tasks run on the timer thread and must return quickly, typically by submitting work to a game loop.
+ */
+public class HashedWheelTimer {
+    /**
+     * PRIVATE STATICS
+     */
+    private static final long DEFAULT_TICK_MILLIS = 100;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    /**
+     * Bounds the work of a single tick when a burst of timeouts is scheduled.
+     */
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    private static HashedWheelTimer ourInstance =
+            new HashedWheelTimer(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+
+    /**
+     * @return the timer shared by all the games of the server.
+     */
+    public static HashedWheelTimer getInstance() {
+        return ourInstance;
+    }
+
+    /********************************
+     ******** PRIVATES **************
+     ********************************/
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startTime = System.nanoTime();
+    private final Queue<Timeout> scheduledTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger liveTimeoutCount = new AtomicInteger();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private volatile boolean running = true;
+    private Thread workerThread;
+
+    /**
+     * Ticks done so far, only touched by the timer thread.
+     */
+    private long tick;
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param tickDuration
+     * @param unit
+     * @param wheelSize    number of buckets, rounded up to a power of two.
+     */
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        }
+        tickNanos = unit.toNanos(tickDuration);
+
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Schedules the task to run once after the delay. The timer thread is started on first use.
+     *
+     * @param task
+     * @param delay
+     * @param unit
+     * @return handle to cancel the task.
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("Timer is stopped");
+        }
+        start();
+
+        long deadline = System.nanoTime() - startTime + unit.toNanos(Math.max(delay, 0));
+        Timeout timeout = new Timeout(this, task, deadline);
+        liveTimeoutCount.incrementAndGet();
+        scheduledTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return number of timeouts that have neither expired nor been cancelled.
+     */
+    public int liveTimeoutCount() {
+        return liveTimeoutCount.get();
+    }
+
+    /**
+     * Stops the timer thread. Timeouts that haven't expired yet never will.
+     */
+    public void stop() {
+        running = false;
+        if (workerThread != null) {
+            workerThread.interrupt();
+        }
+    }
+
+    /****** PRIVATES ******/
+
+    /**
+     *
+     */
+    private void start() {
+        if (started.compareAndSet(false, true)) {
+            workerThread = new Thread(this::run, "hashed-wheel-timer");
+            workerThread.setDaemon(true);
+            workerThread.start();
+        }
+    }
+
+    /**
+     * Main loop of the timer thread.
+     */
+    private void run() {
+        while (running) {
+            long now = waitForNextTick();
+            if (!running) {
+                break;
+            }
+            removeCancelledTimeouts();
+            transferScheduledTimeouts();
+            wheel[(int) (tick & mask)].expireTimeouts(now);
+            tick++;
+        }
+    }
+
+    /**
+     * @return time since the timer started when the current tick is due.
+     */
+    private long waitForNextTick() {
+        long tickDeadline = tickNanos * (tick + 1);
+        while (true) {
+            long now = System.nanoTime() - startTime;
+            long sleepMillis = (tickDeadline - now + 999999) / 1000000;
+            if (sleepMillis <= 0) {
+                return now;
+            }
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return now;
+                }
+            }
+        }
+    }
+
+    /**
+     * Links the newly scheduled timeouts into the bucket of their deadline.
+     */
+    private void transferScheduledTimeouts() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = scheduledTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.isCancelled()) {
+                continue;
+            }
+
+            long deadlineTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (deadlineTick - tick) / wheel.length;
+
+            // A deadline already in the past goes to the current bucket and expires on this tick.
+            long bucketTick = Math.max(deadlineTick, tick);
+            wheel[(int) (bucketTick & mask)].add(timeout);
+        }
+    }
+
+    /**
+     *
+     */
+    private void removeCancelledTimeouts() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * A scheduled task. Cancelling is safe from any thread.
+     */
+    public static final class Timeout {
+        private static final int INIT = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(INIT);
+
+        // Owned by the timer thread.
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return false if the task has already run or has been cancelled before.
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(INIT, CANCELLED)) {
+                return false;
+            }
+            timer.liveTimeoutCount.decrementAndGet();
+            timer.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        /**
+         *
+         */
+        private void expire() {
+            if (!state.compareAndSet(INIT, EXPIRED)) {
+                return;
+            }
+            timer.liveTimeoutCount.decrementAndGet();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // A failing task must not stop the timer.
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of the timeouts hashed to one slot of the wheel.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        /**
+         * @param timeout
+         * @return the timeout after the removed one.
+         */
+        Timeout remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+
+        /**
+         * Runs the timeouts of the current round whose deadline has passed.
+         *
+         * @param now
+         */
+        void expireTimeouts(long now) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                if (timeout.isCancelled()) {
+                    timeout = remove(timeout);
+                } else if (timeout.remainingRounds <= 0 && timeout.deadline <= now) {
+                    Timeout next = remove(timeout);
+                    timeout.expire();
+                    timeout = next;
+                } else {
+                    if (timeout.remainingRounds > 0) {
+                        timeout.remainingRounds--;
+                    }
+                    timeout = timeout.next;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package server;
+
+import utils.constants;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reclaims connections whose client has gone away without closing them, such as half-open TCP connections.
+ * <p>
+ * Every connection is checked once per heartbeat interval on the shared timing wheel, so watching a connection
+ * costs one timeout and no thread. A connection the client hasn't sent anything on for an interval is sent a PING,
+ * which a live client answers with a PONG; anything the client sends counts as a sign of life. A connection that
+ * has missed the given number of heartbeats in a row is closed.
+ */
+public class IdleReaper {
+    /**
+     * PRIVATE STATICS
+     */
+    private static IdleReaper ourInstance = new IdleReaper(HashedWheelTimer.getInstance(),
+            constants.HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS, constants.MAX_MISSED_HEARTBEATS);
+
+    /**
+     * @return the reaper shared by all the connections of the server.
+     */
+    public static IdleReaper getInstance() {
+        return ourInstance;
+    }
+
+    /********************************
+     ******** PRIVATES **************
+     ********************************/
+    private final HashedWheelTimer timer;
+    private final long intervalNanos;
+    private final int maxMissedHeartbeats;
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param timer               wheel the connections are checked on.
+     * @param interval            time between two heartbeats.
+     * @param unit
+     * @param maxMissedHeartbeats heartbeats a connection may miss in a row before it is closed.
+     */
+    public IdleReaper(HashedWheelTimer timer, long interval, TimeUnit unit, int maxMissedHeartbeats) {
+        if (interval <= 0 || maxMissedHeartbeats <= 0) {
+            throw new IllegalArgumentException("Heartbeat interval and missed heartbeats must be positive");
+        }
+        this.timer = timer;
+        this.intervalNanos = unit.toNanos(interval);
+        this.maxMissedHeartbeats = maxMissedHeartbeats;
+    }
+
+    /**
+     * Starts watching a connection. Both callbacks run on the timer thread and must not block.
+     *
+     * @param ping  sends a PING to the client.
+     * @param close closes the connection, called at most once.
+     * @return the heartbeat the connection reports what it reads to.
+     */
+    public Heartbeat watch(Runnable ping, Runnable close) {
+        Heartbeat heartbeat = new Heartbeat(ping, close);
+        heartbeat.schedule();
+        return heartbeat;
+    }
+
+    /**
+     * Liveness of one connection.
+     */
+    public final class Heartbeat {
+        private final Runnable ping;
+        private final Runnable close;
+        private volatile long lastSeen = System.nanoTime();
+        private boolean cancelled = false;
+        private HashedWheelTimer.Timeout timeout;
+
+        private Heartbeat(Runnable ping, Runnable close) {
+            this.ping = ping;
+            this.close = close;
+        }
+
+        /**
+         * Called whenever the client sends something, from any thread.
+         */
+        public void touch() {
+            lastSeen = System.nanoTime();
+        }
+
+        /**
+         * Stops watching the connection, once it is closed for any reason.
+         */
+        public synchronized void cancel() {
+            cancelled = true;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+
+        /**
+         * @return number of heartbeats missed in a row so far.
+         */
+        public int missedHeartbeats() {
+            return (int) ((System.nanoTime() - lastSeen) / intervalNanos);
+        }
+
+        /****** PRIVATES ******/
+
+        /**
+         *
+         */
+        private synchronized void schedule() {
+            if (!cancelled) {
+                timeout = timer.newTimeout(this::check, intervalNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * Runs on the timer thread once per interval.
+         */
+        private void check() {
+            int missed = missedHeartbeats();
+            if (missed >= maxMissedHeartbeats) {
+                synchronized (this) {
+                    if (cancelled) {
+                        return;
+                    }
+                    cancelled = true;
+                }
+                close.run();
+                return;
+            }
+            if (missed > 0) {
+                ping.run();
+            }
+            schedule();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package server;
+
+/**
+ * How much may pile up for a client that doesn't keep up with what the server sends it.
+ * <p>
+ * Every connection counts the bytes queued for it. Going over the high watermark makes it a slow client, dealt
+ * with according to the policy: it is either disconnected, or its queue is cut down by dropping the table states
+ * that a newer table state queued behind them makes stale. Having dropped what it could, a client still over the
+ * high watermark is disconnected, so a queue never holds much more than the high watermark. A client whose stale
+ * table states were dropped keeps getting only the latest one until its queue is back under the low watermark.
+ */
+public final class OutboundLimits {
+    /********************************
+     ******** PUBLIC STATICS ********
+     ********************************/
+    public static final int DEFAULT_HIGH_WATERMARK = 256 * 1024;
+    public static final int DEFAULT_LOW_WATERMARK = 64 * 1024;
+
+    public enum SlowClientPolicy {
+        DISCONNECT,
+        // Clients only see the latest table, the hand sizes of the other players may be off until the next deal.
+        DROP_STALE_TABLE
+    }
+
+    /**
+     * PRIVATE STATICS
+     */
+    private static volatile OutboundLimits ourDefault =
+            new OutboundLimits(DEFAULT_HIGH_WATERMARK, DEFAULT_LOW_WATERMARK, SlowClientPolicy.DISCONNECT);
+
+    /**
+     * @return the limits of the connections created from now on.
+     */
+    public static OutboundLimits getDefault() {
+        return ourDefault;
+    }
+
+    /**
+     * @param limits limits of the connections created from now on.
+     */
+    public static void setDefault(OutboundLimits limits) {
+        if (limits == null) {
+            throw new IllegalArgumentException("Limits can't be null");
+        }
+        ourDefault = limits;
+    }
+
+    /********************************
+     ******** PRIVATES **************
+     ********************************/
+    private final long highWatermark;
+    private final long lowWatermark;
+    private final SlowClientPolicy policy;
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param highWatermark queued bytes that make a client slow.
+     * @param lowWatermark  queued bytes under which a client is no longer slow.
+     * @param policy        what happens to slow clients.
+     */
+    public OutboundLimits(long highWatermark, long lowWatermark, SlowClientPolicy policy) {
+        if (lowWatermark < 0 || highWatermark < lowWatermark) {
+            throw new IllegalArgumentException("Watermarks must satisfy 0 <= low <= high");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Policy can't be null");
+        }
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.policy = policy;
+    }
+
+    /***************************************
+     *************** GETTERS **************
+     **************************************/
+
+    public long getHighWatermark() {
+        return highWatermark;
+    }
+
+    public long getLowWatermark() {
+        return lowWatermark;
+    }
+
+    public SlowClientPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @param queuedBytes
+     * @return true if that much queued makes a client slow.
+     */
+    public boolean isOverHighWatermark(long queuedBytes) {
+        return queuedBytes > highWatermark;
+    }
+
+    /**
+     * @param queuedBytes
+     * @return true if a slow client with that much queued has caught up.
+     */
+    public boolean isUnderLowWatermark(long queuedBytes) {
+        return queuedBytes < lowWatermark;
+    }
+
+    /**
+     * @return true if slow clients get their stale table states dropped before being disconnected.
+     */
+    public boolean dropsStaleTableStates() {
+        return policy == SlowClientPolicy.DROP_STALE_TABLE;
+    }
+}
@@ -1,8 +1,9 @@
 package server;
 
-import server.models.Machiavelli;
+import server.models.TableRegistry;
 import server.proactor.ProactorInitiator;
 import server.reactor.ReactorInitiator;
+import server.virtualthreads.VirtualThreadInitiator;
 import utils.constants;
 
 import java.io.IOException;
@@ -22,7 +23,6 @@ public class Server implements Runnable {
      * PRIVATES
      */
     private int port;
-    private Machiavelli machiavelli;
 
     private constants.GameMode gameMode;
 
@@ -38,8 +38,7 @@ public class Server implements Runnable {
     public Server(int port, int numPlayers, constants.GameMode serverMode, CyclicBarrier barrier) throws IOException {
         this.barrier = barrier;
         this.port = port;
-        machiavelli = Machiavelli.getInstance();
-        machiavelli.initialize(numPlayers);
+        TableRegistry.getInstance().initialize(numPlayers);
         gameMode = serverMode;
         String logText = "starting server on: localhost at port " + port + " in "+ gameMode + " mode";
         log.info(logText);
@@ -64,6 +63,9 @@ public class Server implements Runnable {
                 case PROACTIVE:
                     serverModeInitiator = new ProactorInitiator(address);
                     break;
+                case VIRTUAL_THREADS:
+                    serverModeInitiator = new VirtualThreadInitiator(address);
+                    break;
             }
 
             ServerModeRunner serverModeRunner = serverModeInitiator.initiateMode();
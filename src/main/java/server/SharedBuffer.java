@@ -0,0 +1,189 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A command encoded once into a pooled buffer and sent to one or several players.
+ * <p>
+ * Every recipient writes from its own read-only {@link #view()}, so positions don't interfere while the bytes are
+ * shared. The buffer is reference counted: whoever holds on to it past the call that handed it over, typically a
+ * pending write, takes a reference with {@link #retain()} and gives it back with {@link #release()}.
+ * The pooled buffer goes back to the pool when the last reference is released.
+ * <p>
+ * A table state carries the whole table, so a newer one makes it stale: connections that fall behind may drop it.
+ * <p>
+ * Several commands encoded back to back can be handed out as {@link #slice(int, int)}s, each holding a reference to
+ * the whole buffer.
+ */
+public final class SharedBuffer {
+    /********************************
+     ******** PRIVATES **************
+     ********************************/
+    private final ByteBuffer buffer;
+    private final BufferPool pool;
+    private final boolean tableState;
+    private final SharedBuffer parent;
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param buffer     flipped buffer holding the encoded command.
+     * @param pool       pool the buffer goes back to, null for a slice.
+     * @param tableState whether the command is a table state.
+     * @param parent     buffer a slice is cut from, null for a pooled buffer.
+     */
+    private SharedBuffer(ByteBuffer buffer, BufferPool pool, boolean tableState, SharedBuffer parent) {
+        this.buffer = buffer;
+        this.pool = pool;
+        this.tableState = tableState;
+        this.parent = parent;
+    }
+
+    /**
+     * @param command serialized command.
+     * @return the encoded command, holding one reference for the caller.
+     */
+    public static SharedBuffer encode(String command) {
+        return encode(command, BufferPool.getInstance(), false);
+    }
+
+    /**
+     * @param command serialized command carrying the whole table.
+     * @return the encoded command, holding one reference for the caller.
+     */
+    public static SharedBuffer encodeTableState(String command) {
+        return encode(command, BufferPool.getInstance(), true);
+    }
+
+    /**
+     * @param command serialized command.
+     * @param pool
+     * @return the encoded command, holding one reference for the caller.
+     */
+    static SharedBuffer encode(String command, BufferPool pool) {
+        return encode(command, pool, false);
+    }
+
+    /**
+     * @param command    serialized command.
+     * @param pool
+     * @param tableState whether the command is a table state.
+     * @return the encoded command, holding one reference for the caller.
+     */
+    static SharedBuffer encode(String command, BufferPool pool, boolean tableState) {
+        byte[] bytes = command.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = pool.acquire(bytes.length);
+        buffer.put(bytes).flip();
+        return new SharedBuffer(buffer, pool, tableState, null);
+    }
+
+    /**
+     * @param maxSize upper bound of the bytes the encoder writes.
+     * @param encoder writes the commands into the buffer it is given.
+     * @return the encoded commands, holding one reference for the caller.
+     */
+    public static SharedBuffer encode(int maxSize, Consumer<ByteBuffer> encoder) {
+        return encode(maxSize, encoder, BufferPool.getInstance());
+    }
+
+    /**
+     * @param maxSize upper bound of the bytes the encoder writes.
+     * @param encoder writes the commands into the buffer it is given.
+     * @param pool
+     * @return the encoded commands, holding one reference for the caller.
+     */
+    static SharedBuffer encode(int maxSize, Consumer<ByteBuffer> encoder, BufferPool pool) {
+        ByteBuffer buffer = pool.acquire(maxSize);
+        try {
+            encoder.accept(buffer);
+        } catch (RuntimeException e) {
+            pool.release(buffer);
+            throw e;
+        }
+        buffer.flip();
+        return new SharedBuffer(buffer, pool, false, null);
+    }
+
+    /**
+     * Cuts one command out of several encoded back to back. The slice keeps the whole buffer until it is released.
+     *
+     * @param start position the command starts at.
+     * @param end   position right after the command.
+     * @return the command, holding one reference for the caller.
+     * @throws IllegalArgumentException if the range isn't within the encoded bytes.
+     */
+    public SharedBuffer slice(int start, int end) throws IllegalArgumentException {
+        if (start < 0 || start > end || end > buffer.limit()) {
+            throw new IllegalArgumentException("Slice [" + start + ", " + end + ") is out of bounds");
+        }
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(end);
+        slice.position(start);
+        retain();
+        return new SharedBuffer(slice.slice(), null, tableState, this);
+    }
+
+    /**
+     * @return a new read-only view of the whole command.
+     */
+    public ByteBuffer view() {
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return encoded size of the command.
+     */
+    public int size() {
+        return buffer.limit();
+    }
+
+    /**
+     * @return true if a newer table state makes this command stale.
+     */
+    public boolean isTableState() {
+        return tableState;
+    }
+
+    public int refCount() {
+        return refCount.get();
+    }
+
+    /**
+     * Takes one more reference.
+     *
+     * @return this buffer.
+     * @throws IllegalStateException if the buffer has already been released.
+     */
+    public SharedBuffer retain() throws IllegalStateException {
+        int count;
+        do {
+            count = refCount.get();
+            if (count <= 0) {
+                throw new IllegalStateException("Buffer has already been released");
+            }
+        } while (!refCount.compareAndSet(count, count + 1));
+        return this;
+    }
+
+    /**
+     * Gives back one reference, the last one returns the buffer to the pool.
+     *
+     * @throws IllegalStateException if released more often than retained.
+     */
+    public void release() throws IllegalStateException {
+        int count = refCount.decrementAndGet();
+        if (count == 0) {
+            if (parent != null) {
+                parent.release();
+            } else {
+                pool.release(buffer);
+            }
+        } else if (count < 0) {
+            throw new IllegalStateException("Buffer has been released too many times");
+        }
+    }
+}
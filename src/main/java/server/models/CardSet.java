@@ -1,8 +1,7 @@
 package server.models;
 
-import server.models.cards.Ace;
 import server.models.cards.Card;
-import server.models.cards.Suit;
+import server.models.cards.CardRegistry;
 
 import java.util.*;
 
@@ -14,12 +13,20 @@ public class CardSet {
      ******** PRIVATES **************
      ********************************/
     private ArrayList<Card> allCards;
-    private ArrayList<Card> cards;
-    private ArrayList<Card> jokers;
-    private Map<Suit, ArrayList<Card>> suitCardMap = new HashMap<>();
-    private Map<Integer, ArrayList<Card>> rankCardMap = new HashMap<>();
+    private PackedCardSet packed = new PackedCardSet();
+
+    /**
+     * Cards that can't be packed: hidden cards on the client and copies beyond the two the deck has.
+     * Stays null unless such a card is added.
+     */
+    private ArrayList<Card> unpacked;
     private boolean isSorted = true;
 
+    /**
+     * Sum of the point values of all cards, kept up to date by every modifier so scoring never rescans the set.
+     */
+    private int pointValue;
+
     /**
      * CONSTRUCTOR
      *
@@ -47,24 +54,58 @@ public class CardSet {
      */
     public CardSet(String setString) {
         this();
-        String[] cards = setString.split(",");
 
         try {
-            for (String c : cards) {
-                this.addCard(Card.fromString(c));
+            int start = 0;
+            while (start < setString.length()) {
+                int end = setString.indexOf(',', start);
+                if (end < 0) {
+                    end = setString.length();
+                }
+
+                if (end > start) {
+                    this.addCard(parseCard(setString, start, end));
+                }
+                start = end + 1;
             }
         } catch (IllegalArgumentException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Looks the card token up in the registry, falls back to Card.fromString for tokens like "hidden".
+     *
+     * @param setString
+     * @param start
+     * @param end
+     * @return
+     * @throws IllegalArgumentException
+     */
+    private static Card parseCard(String setString, int start, int end) throws IllegalArgumentException {
+        int code = CardRegistry.parse(setString, start, end);
+        if (code != CardRegistry.INVALID_CODE) {
+            return CardRegistry.get(code);
+        }
+        return Card.fromString(setString.substring(start, end));
+    }
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param packedCards
+     */
+    public CardSet(PackedCardSet packedCards) {
+        this.allCards = packedCards.getCards();
+        this.packed = packedCards.getSnapshot();
+        this.pointValue = packedCards.getPointValue();
+    }
+
     /**
      * CONSTRUCTOR
      */
     public CardSet() {
-        this.cards = new ArrayList<>();
         this.allCards = new ArrayList<>();
-        this.jokers = new ArrayList<>();
     }
 
     /**
@@ -75,25 +116,20 @@ public class CardSet {
     public void addCard(Card card) {
         isSorted = false;
         allCards.add(card);
-        if (card.isJoker()) {
-            //if(jokerCount()<=1)
-            jokers.add(card);
+        pointValue += card.getPointValue();
 
-            return;
+        if (!card.isHidden() && !card.isDropTarget()) {
+            int code = CardRegistry.codeOf(card);
+            if (packed.count(code) < PackedCardSet.MAX_COPIES) {
+                packed.addCode(code);
+                return;
+            }
         }
-        //System.out.println(jokerCount());
-
-        // Update suit map
-        ArrayList<Card> suit = suitCardMap.getOrDefault(card.getSuit(), new ArrayList<>());
-        suit.add(card);
-        suitCardMap.put(card.getSuit(), suit);
 
-        // Update rank map
-        ArrayList<Card> rank = rankCardMap.getOrDefault(card.getRank(), new ArrayList<>());
-        rank.add(card);
-        rankCardMap.put(card.getRank(), rank);
-
-        cards.add(card);
+        if (unpacked == null) {
+            unpacked = new ArrayList<>();
+        }
+        unpacked.add(card);
     }
 
     /**
@@ -117,28 +153,24 @@ public class CardSet {
      * @return
      */
     public boolean removeCard(Card card) {
-        allCards.remove(card);
-
-        if (jokers.remove(card)) {
-            return true;
-        }
-
-        if (!cards.remove(card)) {
+        if (!allCards.remove(card)) {
             return false;
         }
+        pointValue -= card.getPointValue();
 
-        ArrayList<Card> suit = suitCardMap.get(card.getSuit());
-        suit.remove(card);
-        if (suit.isEmpty()) {
-            suitCardMap.remove(card.getSuit());
+        if (hasUnpackedCards() && unpacked.remove(card)) {
+            return true;
         }
+        return packed.removeCard(card);
+    }
 
-        ArrayList<Card> rank = rankCardMap.get(card.getRank());
-        rank.remove(card);
-        if (rank.isEmpty()) {
-            rankCardMap.remove(card.getRank());
-        }
-        return true;
+    /**
+     * gets the penalty points of the cards in this set without rescanning them
+     *
+     * @return
+     */
+    public int getPointValue() {
+        return pointValue;
     }
 
     /**
@@ -162,82 +194,25 @@ public class CardSet {
      * @return
      */
     public boolean isAValidMeld(int minSetSize) {
-        // An empty set is always a valid meld regardless of minimum set size.
-        if (totalCount() == 0) {
-            return true;
+        // Cards that aren't in the deck only form a meld on their own.
+        if (hasUnpackedCards()) {
+            return totalCount() >= minSetSize && totalCount() == 1;
         }
-
-        //Don't bother if set is not big enough.
-        if (totalCount() < minSetSize) {
-            return false;
-        }
-
-        //A single card is always a valid meld.
-        if (totalCount() == 1) {
-            return true;
-        }
-
-        // a valid meld can have max 14 cards.
-        if (totalCount() > 14) {
-            return false;
-        }
-
-        //A valid meld may contain at most one Joker.
-        if (jokerCount() > 1) {
-            return false;
-        }
-
-        return (isASet() || isAStraight());
+        return MeldTable.isAValidMeld(packed.getFirstLayer(), packed.getSecondLayer(), minSetSize);
     }
 
     /**
      * @return
      */
     public boolean isAStraight() {
-        sort();
-
-        // In a straight all cards should be of same suit.
-        if (suitCardMap.size() > 1) {
-            return false;
-        }
-
-        // In a straight all cards should be of different rank.
-        if (rankCardMap.size() != cardCount()) {
-            return false;
-        }
-
-        int rankDifference = getMinRankDifference();
-
-        int missingCardsForAStraight = rankDifference - (cardCount() - 1);
-        if (missingCardsForAStraight > jokerCount()) {
-            return false;
-        }
-
-        return true;
+        return !hasUnpackedCards() && MeldValidator.isAStraight(packed.getFirstLayer(), packed.getSecondLayer());
     }
 
     /**
      * @return
      */
     public boolean isASet() {
-        sort();
-
-        // A suit may contain maximum 4 cards.
-        if (totalCount() > 4) {
-            return false;
-        }
-
-        // In a set all cards should have different suits.
-        if (suitCardMap.size() != cardCount()) {
-            return false;
-        }
-
-        // In a set all cards should be of same rank.
-        if (rankCardMap.size() > 1) {
-            return false;
-        }
-
-        return true;
+        return !hasUnpackedCards() && MeldValidator.isASet(packed.getFirstLayer(), packed.getSecondLayer());
     }
 
     /**
@@ -248,7 +223,6 @@ public class CardSet {
             return;
         }
         Collections.sort(allCards);
-        Collections.sort(cards);
         isSorted = true;
     }
 
@@ -259,10 +233,17 @@ public class CardSet {
      * @return true if the given cardSet can be joined with the card set of allCards, false otherwise
      */
     public boolean canAcceptCards(CardSet cardSet) {
-        CardSet proposedCardSet = new CardSet(allCards);
+        if (hasUnpackedCards() || cardSet.hasUnpackedCards()) {
+            return totalCount() + cardSet.totalCount() <= 1;
+        }
 
-        proposedCardSet.join(cardSet);
-        return proposedCardSet.isAValidMeld();
+        PackedCardSet proposedCardSet = packed.getSnapshot();
+        try {
+            proposedCardSet.join(cardSet.packed);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return proposedCardSet.isAValidMeld(1);
     }
 
     /**
@@ -287,10 +268,17 @@ public class CardSet {
             return true;
         }
 
-        CardSet proposedCardSet = new CardSet(allCards);
+        if (hasUnpackedCards() || card.isHidden() || card.isDropTarget()) {
+            return totalCount() == 0;
+        }
 
-        proposedCardSet.addCard(card);
-        return proposedCardSet.isAValidMeld();
+        PackedCardSet proposedCardSet = packed.getSnapshot();
+        try {
+            proposedCardSet.addCard(card);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return proposedCardSet.isAValidMeld(1);
     }
 
     /**
@@ -303,39 +291,30 @@ public class CardSet {
     }
 
     /**
-     * @return
-     */
-    private int cardCount() {
-        return cards.size();
-    }
-
-    /**
-     * determins the size of jokers ArrayList
+     * determins the number of jokers
      *
      * @return
      */
     private int jokerCount() {
-        return jokers.size();
+        return packed.jokerCount();
     }
 
     /**
-     * @return
+     * @return the layers of this set, for packed set operations.
+     * @throws IllegalArgumentException if the set holds cards that can't be packed.
      */
-    private int getMinRankDifference() {
-        int minRank = cards.get(0).getRank();
-        int maxRank = cards.get(cardCount() - 1).getRank();
-        int rankDifference = maxRank - minRank;
-
-        if (cards.get(0) instanceof Ace) {
-            minRank = cards.get(1).getRank();
-            maxRank = 14;
-            int rankDifference2 = maxRank - minRank;
-            if (rankDifference > rankDifference2) {
-                rankDifference = rankDifference2;
-            }
+    PackedCardSet getPackedCards() throws IllegalArgumentException {
+        if (hasUnpackedCards()) {
+            throw new IllegalArgumentException("Card set contains cards that can't be packed: " + unpacked);
         }
+        return packed;
+    }
 
-        return rankDifference;
+    /**
+     * @return true if the set holds cards that are not tracked by the packed layers.
+     */
+    private boolean hasUnpackedCards() {
+        return unpacked != null && !unpacked.isEmpty();
     }
 
     /**
@@ -364,22 +343,33 @@ public class CardSet {
             return false;
         }
 
-        if (set.jokerCount() != this.jokerCount()) {
+        if (!set.packed.equals(packed)) {
             return false;
         }
 
+        if (!hasUnpackedCards() && !set.hasUnpackedCards()) {
+            return true;
+        }
+
         set.sort();
         sort();
         return set.allCards.equals(allCards);
     }
 
     /**
+     * Order independent, so that equal sets don't have to be sorted.
+     *
      * @return
      */
     @Override
     public int hashCode() {
-        sort();
-        return allCards.hashCode();
+        int hash = packed.hashCode();
+        if (hasUnpackedCards()) {
+            for (Card card : unpacked) {
+                hash += card.hashCode();
+            }
+        }
+        return hash;
     }
 
     /**
@@ -400,6 +390,10 @@ public class CardSet {
      * @return
      */
     public boolean superSetOf(CardSet set) {
+        if (!hasUnpackedCards() && !set.hasUnpackedCards()) {
+            return packed.superSetOf(set.packed);
+        }
+
         CardSet subSet = new CardSet(set.allCards);
         CardSet superSet = new CardSet(allCards);
 
@@ -416,6 +410,10 @@ public class CardSet {
      * @return
      */
     public CardSet diff(CardSet set) {
+        if (!hasUnpackedCards() && !set.hasUnpackedCards()) {
+            return new CardSet(packed.diff(set.packed));
+        }
+
         CardSet diff = new CardSet(allCards);
 
         for (Card card : set.allCards) {
@@ -440,15 +438,36 @@ public class CardSet {
      * @param cardSet
      */
     public void removeCards(CardSet cardSet) {
-        removeCards(cardSet.allCards);
+        if (hasUnpackedCards() || cardSet.hasUnpackedCards()) {
+            removeCards(cardSet.allCards);
+            return;
+        }
+
+        // Remove everything from the layers at once, then drop the surplus copies from the list in one pass.
+        // Walking backwards keeps the last copies, so the first ones are removed like removeCard does.
+        packed.removeCards(cardSet.packed);
+        PackedCardSet kept = new PackedCardSet();
+        ListIterator<Card> iterator = allCards.listIterator(allCards.size());
+        while (iterator.hasPrevious()) {
+            Card card = iterator.previous();
+            int code = CardRegistry.codeOf(card);
+            if (kept.count(code) < packed.count(code)) {
+                kept.addCode(code);
+            } else {
+                iterator.remove();
+                pointValue -= card.getPointValue();
+            }
+        }
     }
 
     /**
-     * removes all cards from allCards ArrayList
+     * removes all cards in constant time, the list keeps its storage for the next hand
      */
     public void removeAllCards() {
-        while (!allCards.isEmpty()) {
-            removeCard(allCards.get(0));
-        }
+        allCards.clear();
+        packed.removeAllCards();
+        pointValue = 0;
+        unpacked = null;
+        isSorted = true;
     }
 }
@@ -0,0 +1,149 @@
+package server.models;
+
+import server.models.cards.Card;
+import server.models.cards.CardRegistry;
+
+import java.util.ArrayList;
+import java.util.EmptyStackException;
+import java.util.SplittableRandom;
+
+/**
+ * The draw pile of a game, made of two standard decks.
+ * <p>
+ * Cards are kept as {@link CardRegistry} codes in an int array with a cursor on the top of the deck,
+ * so drawing is an index decrement. The deck is shuffled with Fisher-Yates on its own random generator:
+ * two decks created from the same seed deal exactly the same cards.
+ */
+public class Deck {
+    /********************************
+     ******** PUBLIC STATICS ********
+     ********************************/
+    public static final int SIZE = PackedCardSet.MAX_COPIES * CardRegistry.CODE_COUNT;
+
+    /********************************
+     ******** PRIVATES **************
+     ********************************/
+    private final int[] codes = new int[SIZE];
+    private final SplittableRandom random;
+
+    /**
+     * Number of cards left, the top card is at top - 1.
+     */
+    private int top;
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param seed
+     */
+    public Deck(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param random generator owned by the deck from now on.
+     */
+    public Deck(SplittableRandom random) {
+        this.random = random;
+        reset();
+    }
+
+    /***************************************
+     *************** GETTERS **************
+     **************************************/
+
+    /**
+     * @return number of cards left in the deck.
+     */
+    public int size() {
+        return top;
+    }
+
+    /**
+     * @return true if there is no card left to draw.
+     */
+    public boolean isEmpty() {
+        return top == 0;
+    }
+
+    /**
+     * @return the cards left in the deck, the top card first.
+     */
+    public ArrayList<Card> getCards() {
+        ArrayList<Card> cards = new ArrayList<>(top);
+        for (int i = top - 1; i >= 0; i--) {
+            cards.add(CardRegistry.get(codes[i]));
+        }
+        return cards;
+    }
+
+    /***************************************
+     *************** MODIFIERS *************
+     **************************************/
+
+    /**
+     * @return code of the top card, removed from the deck.
+     * @throws EmptyStackException if the deck is empty.
+     */
+    public int drawCode() throws EmptyStackException {
+        if (top == 0) {
+            throw new EmptyStackException();
+        }
+        return codes[--top];
+    }
+
+    /**
+     * @return the top card, removed from the deck.
+     * @throws EmptyStackException if the deck is empty.
+     */
+    public Card draw() throws EmptyStackException {
+        return CardRegistry.get(drawCode());
+    }
+
+    /**
+     * Takes a whole hand off the top of the deck in one step.
+     *
+     * @param cardCount
+     * @return the cards of the hand.
+     * @throws EmptyStackException if the deck doesn't have enough cards.
+     */
+    public PackedCardSet drawHand(int cardCount) throws EmptyStackException {
+        if (cardCount > top) {
+            throw new EmptyStackException();
+        }
+        PackedCardSet hand = new PackedCardSet();
+        for (int i = top - cardCount; i < top; i++) {
+            hand.addCode(codes[i]);
+        }
+        top -= cardCount;
+        return hand;
+    }
+
+    /**
+     * Shuffles the cards left in the deck.
+     */
+    public void shuffle() {
+        for (int i = top - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int code = codes[i];
+            codes[i] = codes[j];
+            codes[j] = code;
+        }
+    }
+
+    /**
+     * Puts back all the cards and shuffles them.
+     * The random generator carries on, so a game keeps being reproducible from its seed across resets.
+     */
+    public void reset() {
+        for (int copy = 0; copy < PackedCardSet.MAX_COPIES; copy++) {
+            for (int code = 0; code < CardRegistry.CODE_COUNT; code++) {
+                codes[copy * CardRegistry.CODE_COUNT + code] = code;
+            }
+        }
+        top = SIZE;
+        shuffle();
+    }
+}
@@ -5,70 +5,208 @@ import commands.client.*;
 import commands.server.PlayerMove;
 import commands.server.WinnerCommand;
 import server.ClientMessageSender;
+import server.GameLoop;
+import server.HashedWheelTimer;
+import server.SharedBuffer;
 import server.models.cards.Card;
 import server.models.cards.HiddenCard;
 import utils.constants;
 
 import java.util.ArrayList;
 import java.util.EmptyStackException;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
 
 import static commands.Command.CommandNames.TABLE_IS_FULL;
 
 /**
- *
+ * State and rules of a game.
+ * <p>
+ * The game is not thread safe by design: every call that reads or changes its state has to run on the game loop,
+ * hand it over with {@link #submit(Runnable)}. The I/O threads only enqueue work and never wait on the rules.
  */
 public class Machiavelli {
+    /**
+     * PRIVATE STATICS
+     */
+    final static Logger log = Logger.getLogger(String.valueOf(Machiavelli.class));
+
+    /**
+     * Seat number no player sits on.
+     */
+    private static final int NO_SEAT = -1;
+
     /********************************
      ******** PRIVATES **************
      ********************************/
+    private final int id;
+    private final TableRegistry registry;
+    private final long seed;
+
+    /**
+     * Every random choice of the game comes from here, so a game can be replayed from its seed.
+     */
+    private final SplittableRandom random;
     private Table table;
     private ArrayList<Player> players;
     private int numOfPlayers;
     private boolean gameStarted = false;
+    private boolean gameOver = false;
+    private final Set<Player> rematchRequests = new HashSet<>();
+    private final Scoreboard scoreboard = new Scoreboard();
     private Seat currentSeat;
     private TableSeats tableSeats = null;
+    private final GameLoop gameLoop = new GameLoop();
 
     /**
-     * PRIVATE STATICS
+     * Deadline of the current turn in reactive mode. Every turn gets a new number so a deadline that fires
+     * after the player has already played is ignored.
      */
-    private static Machiavelli ourInstance = new Machiavelli();
+    private HashedWheelTimer.Timeout turnTimeout;
+    private int turnNumber = 0;
+    private long turnTimeLimit = constants.TURN_TIMEOUT_MILLIS;
     private constants.GameMode gameMode;
 
-    public static Machiavelli getInstance() {
-        return ourInstance;
+    /**
+     * Seats promised to connections, updated by the accepting threads before the players are seated.
+     */
+    private final AtomicInteger reservedSeats = new AtomicInteger();
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param id
+     * @param numOfPlayers
+     */
+    public Machiavelli(int id, int numOfPlayers) {
+        this(null, id, numOfPlayers, ThreadLocalRandom.current().nextLong());
     }
 
     /**
      * CONSTRUCTOR
+     *
+     * @param id
+     * @param numOfPlayers
+     * @param seed         seed of a previous game to replay it.
      */
-    private Machiavelli() {
+    public Machiavelli(int id, int numOfPlayers, long seed) {
+        this(null, id, numOfPlayers, seed);
+    }
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param registry     registry hosting the game, told when a seat is released.
+     * @param id
+     * @param numOfPlayers
+     * @param seed
+     */
+    Machiavelli(TableRegistry registry, int id, int numOfPlayers, long seed) {
+        this.registry = registry;
+        this.id = id;
+        this.seed = seed;
+        random = new SplittableRandom(seed);
+        log.info("game " + id + " created with seed " + seed);
+
+        players = new ArrayList<>();
+        table = new Table(new Deck(random.split()));
+        this.numOfPlayers = numOfPlayers;
+        this.tableSeats = new TableSeats(numOfPlayers);
     }
 
     /***************************************
      *************** GETTERS **************
      **************************************/
 
+    /**
+     * @return id of the game in its registry.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return seed all the random choices of the game derive from.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return scores of the games played at this table.
+     */
+    public Scoreboard getScoreboard() {
+        return scoreboard;
+    }
+
+    /**
+     * @return the players seated at this table.
+     */
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    /**
+     * @return the player whose turn it is, null before the game starts.
+     */
+    public Player getCurrentPlayer() {
+        return currentSeat == null ? null : currentSeat.getPlayer();
+    }
+
     /**
      * gets a random player from players ArrayList
      *
      * @return
      */
     private Player getRandomPlayer() {
-        int currPlayerID = (new Random()).nextInt(players.size());
+        int currPlayerID = random.nextInt(players.size());
 
         return players.get(currPlayerID);
     }
 
     /**
-     * @param numOfPlayers
+     * Runs the task on the game loop, after the tasks submitted before it.
+     *
+     * @param task
      */
-    public void initialize(int numOfPlayers) {
-        players = new ArrayList<>();
-        table = new Table();
-        this.numOfPlayers = numOfPlayers;
-        this.tableSeats = new TableSeats(numOfPlayers);
+    public void submit(Runnable task) {
+        gameLoop.execute(task);
+    }
+
+    /**
+     * Claims a seat for a connection that is about to join. Safe to call from any thread.
+     *
+     * @return false if all the seats are already claimed.
+     */
+    boolean reserveSeat() {
+        int reserved;
+        do {
+            reserved = reservedSeats.get();
+            if (reserved >= numOfPlayers) {
+                return false;
+            }
+        } while (!reservedSeats.compareAndSet(reserved, reserved + 1));
+        return true;
+    }
+
+    /**
+     * @param turnTimeLimit milliseconds a player has to play in reactive mode.
+     */
+    void setTurnTimeLimit(long turnTimeLimit) {
+        this.turnTimeLimit = turnTimeLimit;
+    }
+
+    /**
+     * @return number of claimed seats.
+     */
+    int reservedSeatCount() {
+        return reservedSeats.get();
     }
 
 
@@ -81,7 +219,7 @@ public class Machiavelli {
      */
     private Card drawCardFromDeck(Player player) throws EmptyDeckException {
         try {
-            Card card = table.getDeck().pop();
+            Card card = table.getDeck().draw();
             player.getHand().addCard(card);
             return card;
         } catch (EmptyStackException e) {
@@ -92,33 +230,24 @@ public class Machiavelli {
 
     /**
      * deals fifteen random cards per player
+     * The deck is shuffled, so every player simply takes the next fifteen cards off the top.
+     * All the DEAL_HANDS commands are encoded into one pooled buffer which the I/O layer gets as a single batch.
      */
     private void dealHands(Player dealer) {
-        int currPlayerID = dealer.getPlayerID();
-
-        for (int cardCounter = 0; cardCounter < constants.HAND_SIZE; cardCounter++) {
-
-            int playerCounter = 0;
-
-            while (playerCounter < players.size()) {
-
-                if (currPlayerID >= players.size()) {
-
-                    currPlayerID = 0;
-                }
-
-                players.get(currPlayerID).getHand().addCard(table.getDeck().pop());
-
-                currPlayerID++;
-                playerCounter++;
+        int[] ends = new int[players.size()];
+        SharedBuffer batch = SharedBuffer.encode(players.size() * DealHands.maxEncodedSize(constants.HAND_SIZE), buffer -> {
+            for (int i = 0; i < players.size(); i++) {
+                Player player = players.get(i);
+                PackedCardSet hand = table.getDeck().drawHand(constants.HAND_SIZE);
+                player.setHand(new CardSet(hand));
+
+                // Let clients know their hand.
+                DealHands.encode(buffer, player.getSeatNumber(), hand, table.getVersion());
+                ends[i] = buffer.position();
             }
-        }
-
-        for (Player player : players) {
-            DealHands dealHandsCommand = new DealHands(player.getSeatNumber(), player.getHand());
-            // Let clients know their hand.
-            sendCommandToPlayer(dealHandsCommand, player);
-        }
+        });
+        ClientMessageSender.getInstance().sendBatch(players, batch, ends);
+        batch.release();
 
         switchTurn(tableSeats.getSeat(dealer.getSeatNumber()));
     }
@@ -130,7 +259,7 @@ public class Machiavelli {
     /**
      * @return
      */
-    public synchronized boolean isTableFull() {
+    public boolean isTableFull() {
         return numOfPlayers <= players.size();
     }
 
@@ -138,7 +267,7 @@ public class Machiavelli {
      * @param playerName
      * @param player
      */
-    public synchronized void playerLogin(String playerName, Player player) {
+    public void playerLogin(String playerName, Player player) {
         if (isTableFull()) {
             sendCommandToPlayer(TABLE_IS_FULL.toString(), player);
             return;
@@ -151,11 +280,12 @@ public class Machiavelli {
         sendCommandToAllPlayers(introduce);
     }
 
-    public synchronized Player addPlayer() {
+    public Player addPlayer() {
         // Create new player
         int playerId = players.size();
         String playerName = "Player" + playerId;
         Player player = new Player(playerId, playerName);
+        player.setGame(this);
         players.add(player);
 
         // Place the player in the next empty seat
@@ -164,7 +294,7 @@ public class Machiavelli {
         return player;
     }
 
-    public synchronized void introducePlayer(Player player, constants.GameMode gameMode) {
+    public void introducePlayer(Player player, constants.GameMode gameMode) {
         this.gameMode = gameMode;
         Command introduce = new IntroducePlayer(player.getName(), player.getPlayerID(), player.getSeatNumber());
         Command welcome = new Welcome(player.getName(), player.getPlayerID(), player.getSeatNumber(), numOfPlayers, gameMode);
@@ -188,28 +318,81 @@ public class Machiavelli {
     /**
      * @param player
      */
-    public synchronized void playerLeftTheGame(Player player) {
+    public void playerLeftTheGame(Player player) {
         if (player != null) {
             players.remove(player);
             tableSeats.emptySeat(player.getSeatNumber());
-            gameStarted = false;
 
             sendCommandToAllPlayers(new RemovePlayer(player.getSeatNumber()));
+            ClientMessageSender.getInstance().removePlayer(player);
             resetGame();
+
+            releaseSeat();
         }
     }
 
+    /**
+     * The connection of the player closed before it could be seated, nobody has heard of the player yet.
+     * The seat reserved for the connection is given back.
+     *
+     * @param player a player just added.
+     */
+    public void cancelSeating(Player player) {
+        players.remove(player);
+        tableSeats.emptySeat(player.getSeatNumber());
+        releaseSeat();
+    }
+
+    /**
+     * Gives back a seat reserved by the registry, also for a connection that is dropped before a player is added.
+     */
+    public void releaseSeat() {
+        reservedSeats.decrementAndGet();
+        if (registry != null) {
+            registry.seatReleased(this);
+        }
+    }
+
+    /**
+     * Gets the table ready for the next game, the deck and the hands are cleared in place.
+     */
     private void resetGame() {
-        table.initMachiavelliDeck();
+        gameStarted = false;
+        gameOver = false;
+        rematchRequests.clear();
+        cancelTurnTimeout();
+
+        table.reset();
         for (Player player : players) {
             player.getHand().removeAllCards();
         }
     }
 
     /**
+     * A seated player wants to play again once the game is over.
+     * When every player at the full table has asked for it, a new game is dealt to the same players.
      *
+     * @param player
      */
-    public synchronized void startGame() {
+    public void requestRematch(Player player) {
+        if (gameStarted && !gameOver) {
+            sendCommandToPlayer(new ClientMessage(ClientMessage.MessageTypes.WARNING, "The game is still running."), player);
+            return;
+        }
+
+        rematchRequests.add(player);
+        sendCommandToAllPlayers(new ClientMessage(ClientMessage.MessageTypes.INFO, player.getName() + " wants a rematch."));
+
+        if (isTableFull() && rematchRequests.containsAll(players)) {
+            resetGame();
+            startGame();
+        }
+    }
+
+    /**
+     *
+     */
+    public void startGame() {
         if (!gameStarted && isTableFull()) {
             dealHands(getRandomPlayer());
             this.gameStarted = true;
@@ -220,9 +403,7 @@ public class Machiavelli {
      * @param command
      */
     private void sendCommandToAllPlayers(Command command) {
-        for (Player player : players) {
-            sendCommandToPlayer(command, player);
-        }
+        sendCommandToAllPlayers(command.serialize());
     }
 
     /**
@@ -230,11 +411,7 @@ public class Machiavelli {
      * @param playerSeatNumber
      */
     private void sendCommandToAllPlayersExcept(Command command, int playerSeatNumber) {
-        for (Player player : players) {
-            if (player.getSeatNumber() != playerSeatNumber) {
-                sendCommandToPlayer(command, player);
-            }
-        }
+        broadcast(command.serialize(), playerSeatNumber);
     }
 
     /**
@@ -249,8 +426,32 @@ public class Machiavelli {
      * @param command
      */
     private void sendCommandToAllPlayers(String command) {
-        for (Player player : players) {
-            sendCommandToPlayer(command, player);
+        broadcast(command, NO_SEAT);
+    }
+
+    /**
+     * Encodes the command once, every player is sent a view of the same buffer.
+     *
+     * @param command          serialized command.
+     * @param exceptSeatNumber seat left out, NO_SEAT to send to everybody.
+     */
+    private void broadcast(String command, int exceptSeatNumber) {
+        broadcast(SharedBuffer.encode(command), exceptSeatNumber);
+    }
+
+    /**
+     * @param encoded          encoded command, the reference of the caller is released once it is sent.
+     * @param exceptSeatNumber seat left out, NO_SEAT to send to everybody.
+     */
+    private void broadcast(SharedBuffer encoded, int exceptSeatNumber) {
+        try {
+            for (Player player : players) {
+                if (player.getSeatNumber() != exceptSeatNumber) {
+                    ClientMessageSender.getInstance().sendShared(player, encoded);
+                }
+            }
+        } finally {
+            encoded.release();
         }
     }
 
@@ -272,42 +473,55 @@ public class Machiavelli {
 
     /**
      * @param seatNumber
+     * @param tableVersion
      * @param proposedSets
      * @param playedCards
      * @return
      */
-    private synchronized String validateMove(int seatNumber, List<CardSet> proposedSets, CardSet playedCards) {
-        CardSet currentTable = table.getAllCardsInASet();
-        CardSet proposedTable = new CardSet();
-
+    private String validateMove(int seatNumber, int tableVersion, List<CardSet> proposedSets, CardSet playedCards) {
         if(isReactive() && seatNumber != currentSeat.getSeatNumber()){
             return "Please wait for your turn.";
         }
 
-        // All proposed sets should be valid.
-        for (CardSet set : proposedSets) {
-            if (!set.isAValidMeld(3)) {
-                return "Proposed table contains invalid meld(s).";
-            }
-            proposedTable.join(set);
+        // Another move has been accepted since this one was built, no need to look at the cards.
+        if (tableVersion != table.getVersion()) {
+            return "The table has changed, other players have already played a move.";
         }
 
-        // Proposed sets must contain at least all cards previously on the table.
-        // aka: player can only add card to the table. Can't withdraw cards.
-        if (!proposedTable.superSetOf(currentTable)) {
-            return "Player can only add card to the table. Can't withdraw cards.";
-        }
+        try {
+            PackedCardSet currentTable = table.getCardsOnTable();
 
-        Player player = tableSeats.getPlayer(seatNumber);
-        // Player hand should include all the cards played.
-        if (!player.getHand().superSetOf(playedCards)) {
-            return "Your hand doesn't contain all the cards played.!";
-        }
+            // All proposed sets should be valid.
+            PackedCardSet proposedTable = new PackedCardSet();
+            for (CardSet set : proposedSets) {
+                if (!set.isAValidMeld(3)) {
+                    return "Proposed table contains invalid meld(s).";
+                }
+                proposedTable.join(set);
+            }
 
-        // After appending the played cards to the table, the table should be equal to proposed table.
-        currentTable.join(playedCards);
-        if (!currentTable.equals(proposedTable)) {
-            return "The proposed table doesn't match, other players may have already played a move.";
+            // Proposed sets must contain at least all cards previously on the table.
+            // aka: player can only add card to the table. Can't withdraw cards.
+            if (!proposedTable.superSetOf(currentTable)) {
+                return "Player can only add card to the table. Can't withdraw cards.";
+            }
+
+            Player player = tableSeats.getPlayer(seatNumber);
+            // Player hand should include all the cards played.
+            PackedCardSet played = new PackedCardSet(playedCards);
+            if (!new PackedCardSet(player.getHand()).superSetOf(played)) {
+                return "Your hand doesn't contain all the cards played.!";
+            }
+
+            // After appending the played cards to the table, the table should be equal to proposed table.
+            PackedCardSet expectedTable = currentTable.getSnapshot();
+            expectedTable.join(played);
+            if (!expectedTable.equals(proposedTable)) {
+                return "The proposed table doesn't match, other players may have already played a move.";
+            }
+        } catch (IllegalArgumentException e) {
+            // A card that isn't in the deck or more copies of a card than the deck has.
+            return "The proposed move contains cards that are not in the deck.";
         }
 
         return "VALID";
@@ -317,9 +531,13 @@ public class Machiavelli {
      * @param playerMove
      * @return
      */
-    public synchronized void processMove(PlayerMove playerMove) {
+    public void processMove(PlayerMove playerMove) {
+        if (gameOver) {
+            // Sent before the client learnt who won.
+            return;
+        }
         Player player = tableSeats.getPlayer(playerMove.getSeatNumber());
-        String validationResult = validateMove(playerMove.getSeatNumber(), playerMove.getTable(), playerMove.getPlayedCards());
+        String validationResult = validateMove(playerMove.getSeatNumber(), playerMove.getTableVersion(), playerMove.getTable(), playerMove.getPlayedCards());
         if (!validationResult.equals("VALID")) {
             sendCommandToPlayer(new ClientMessage(ClientMessage.MessageTypes.WARNING, validationResult), player);
             return;
@@ -329,9 +547,11 @@ public class Machiavelli {
         player.getHand().removeCards(playerMove.getPlayedCards());
 
         // Set new table after the move
-        table.setCardSets(playerMove.getTable());
+        table.commitMove(playerMove.getTable(), playerMove.getPlayedCards());
+        playerMove.setTableVersion(table.getVersion());
 
-        sendCommandToAllPlayers(playerMove);
+        // Clients that fall behind only need the latest table.
+        broadcast(SharedBuffer.encodeTableState(playerMove.serialize()), NO_SEAT);
         if (player.getHand().totalCount() <= 0) {
             setWinner(player);
         } else {
@@ -341,6 +561,9 @@ public class Machiavelli {
     }
 
     private void setWinner(Player winner) {
+        gameOver = true;
+        cancelTurnTimeout();
+        scoreboard.recordGame(winner, players);
         Command setWinner = new WinnerCommand(winner.getSeatNumber());
         sendCommandToAllPlayers(setWinner);
     }
@@ -349,10 +572,18 @@ public class Machiavelli {
      * Pass turn means the player can not play any melds and simply draws a card.
      * In Reactive mode this passes the turn to the next player.
      * In Proactive mode since there's no turn player may continue to draw cards.
+     * Ignored once the game is over.
      *
      * @param player the player who send the command
      */
-    public synchronized void passTurn(Player player) {
+    public void passTurn(Player player) {
+        if (gameOver) {
+            return;
+        }
+        if (isReactive() && player != getCurrentPlayer()) {
+            sendCommandToPlayer(new ClientMessage(ClientMessage.MessageTypes.WARNING, "Please wait for your turn."), player);
+            return;
+        }
         try {
             Card card = drawCardFromDeck(player);
             Command cmdDrawOpenCard = new DrawCard(player.getSeatNumber(), card.toString());
@@ -373,7 +604,54 @@ public class Machiavelli {
      */
     private void switchTurn(Seat seat) {
         currentSeat = seat;
-        sendCommandToAllPlayers(new SwitchTurn(currentSeat.getSeatNumber()));
+        turnNumber++;
+
+        long timeLimit = isReactive() ? turnTimeLimit : 0;
+        startTurnTimeout(timeLimit);
+        sendCommandToAllPlayers(new SwitchTurn(currentSeat.getSeatNumber(), timeLimit));
+    }
+
+    /**
+     * @param timeLimit milliseconds before the turn is passed, 0 for no limit.
+     */
+    private void startTurnTimeout(long timeLimit) {
+        cancelTurnTimeout();
+        if (timeLimit <= 0) {
+            return;
+        }
+
+        int turn = turnNumber;
+        // The timer thread only hands the expiry over to the game loop.
+        turnTimeout = HashedWheelTimer.getInstance().newTimeout(
+                () -> submit(() -> turnExpired(turn)), timeLimit, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     *
+     */
+    private void cancelTurnTimeout() {
+        if (turnTimeout != null) {
+            turnTimeout.cancel();
+            turnTimeout = null;
+        }
+    }
+
+    /**
+     * The player didn't play in time, pass the turn for him as if he had clicked on the deck.
+     *
+     * @param turn number of the turn the deadline was set for.
+     */
+    private void turnExpired(int turn) {
+        // A deadline queued just before the winning move is stale too, the turn number doesn't move on a win.
+        if (!gameStarted || gameOver || turn != turnNumber) {
+            return;
+        }
+
+        passTurn(currentSeat.getPlayer());
+        if (turn == turnNumber) {
+            // The deck is empty, the turn still has to move on.
+            switchTurn();
+        }
     }
 
     /**
@@ -383,8 +661,11 @@ public class Machiavelli {
         switchTurn(currentSeat.getNextSeat());
     }
 
+    /**
+     * @return true if players take turns, which is the case in every mode but the proactive one.
+     */
     private boolean isReactive(){
-        return gameMode == constants.GameMode.REACTIVE;
+        return gameMode != null && gameMode != constants.GameMode.PROACTIVE;
     }
 
     /**
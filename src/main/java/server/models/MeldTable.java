@@ -0,0 +1,175 @@
+package server.models;
+
+import server.models.cards.CardRegistry;
+
+/**
+ * Hash table of every legal meld, generated once when the class is loaded.
+ * <p>
+ * A legal meld never holds two copies of a card (two jokers included), so it is fully described by the first
+ * copy layer of its {@link PackedCardSet}. The table stores those 53 bit keys with open addressing and linear
+ * probing at a low load factor, which makes a lookup a single probe in the common case.
+ */
+public final class MeldTable {
+    /********************************
+     ******** PRIVATE STATICS *******
+     ********************************/
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final int RANKS = CardRegistry.RANKS_PER_SUIT;
+    private static final long JOKER_BIT = 1L << CardRegistry.JOKER_CODE;
+
+    /**
+     * Table size is a power of two at least LOAD_FACTOR_INVERSE times the number of melds.
+     */
+    private static final int LOAD_FACTOR_INVERSE = 2;
+
+    private static final long[] KEYS;
+    private static final int SHIFT;
+    private static final int MASK;
+    private static final int SIZE;
+
+    static {
+        long[] melds = generateMelds();
+        int count = (int) melds[0];
+
+        int bits = 1;
+        while ((1 << bits) < count * LOAD_FACTOR_INVERSE) {
+            bits++;
+        }
+        KEYS = new long[1 << bits];
+        SHIFT = 64 - bits;
+        MASK = KEYS.length - 1;
+
+        int size = 0;
+        for (int i = 1; i <= count; i++) {
+            if (insert(melds[i])) {
+                size++;
+            }
+        }
+        SIZE = size;
+    }
+
+    /**
+     * CONSTRUCTOR
+     */
+    private MeldTable() {
+    }
+
+    /**
+     * @param first      codes present at least once.
+     * @param second     codes present twice.
+     * @param minSetSize
+     * @return same result as {@link MeldValidator#isAValidMeld(long, long, int)}.
+     */
+    public static boolean isAValidMeld(long first, long second, int minSetSize) {
+        int totalCount = Long.bitCount(first) + Long.bitCount(second);
+
+        // An empty set is always a valid meld regardless of minimum set size.
+        if (totalCount == 0) {
+            return true;
+        }
+
+        if (totalCount < minSetSize || second != 0) {
+            return false;
+        }
+
+        return contains(first);
+    }
+
+    /**
+     * @param key first copy layer of a set without duplicates.
+     * @return true if the key is a legal meld.
+     */
+    public static boolean contains(long key) {
+        int slot = slotOf(key);
+        while (KEYS[slot] != 0) {
+            if (KEYS[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & MASK;
+        }
+        return false;
+    }
+
+    /**
+     * @return number of legal melds in the table.
+     */
+    public static int size() {
+        return SIZE;
+    }
+
+    /**
+     * @param key
+     * @return
+     */
+    private static int slotOf(long key) {
+        return (int) ((key * MULTIPLIER) >>> SHIFT);
+    }
+
+    /**
+     * @param key
+     * @return false if the key was already in the table.
+     */
+    private static boolean insert(long key) {
+        int slot = slotOf(key);
+        while (KEYS[slot] != 0) {
+            if (KEYS[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & MASK;
+        }
+        KEYS[slot] = key;
+        return true;
+    }
+
+    /**
+     * Enumerates every candidate that can be a meld and keeps the ones MeldValidator accepts.
+     * Sets only use one rank and straights only use one suit, so the candidates are every combination of suits
+     * for each rank and every combination of ranks for each suit, each with and without a joker.
+     *
+     * @return the number of melds in the first slot followed by the meld keys.
+     */
+    private static long[] generateMelds() {
+        int candidates = 2 * (RANKS * (1 << CardRegistry.SUIT_COUNT) + CardRegistry.SUIT_COUNT * (1 << RANKS));
+        long[] melds = new long[candidates + 2];
+        int count = 0;
+
+        melds[++count] = JOKER_BIT;
+
+        for (int rank = 0; rank < RANKS; rank++) {
+            for (int suits = 1; suits < (1 << CardRegistry.SUIT_COUNT); suits++) {
+                long key = 0;
+                for (int suit = 0; suit < CardRegistry.SUIT_COUNT; suit++) {
+                    if ((suits & (1 << suit)) != 0) {
+                        key |= 1L << (suit * RANKS + rank);
+                    }
+                }
+                count = addIfValid(melds, count, key);
+                count = addIfValid(melds, count, key | JOKER_BIT);
+            }
+        }
+
+        for (int suit = 0; suit < CardRegistry.SUIT_COUNT; suit++) {
+            for (long ranks = 1; ranks < (1L << RANKS); ranks++) {
+                long key = ranks << (suit * RANKS);
+                count = addIfValid(melds, count, key);
+                count = addIfValid(melds, count, key | JOKER_BIT);
+            }
+        }
+
+        melds[0] = count;
+        return melds;
+    }
+
+    /**
+     * @param melds
+     * @param count
+     * @param key
+     * @return the new count.
+     */
+    private static int addIfValid(long[] melds, int count, long key) {
+        if (MeldValidator.isAValidMeld(key, 0, 1)) {
+            melds[++count] = key;
+        }
+        return count;
+    }
+}
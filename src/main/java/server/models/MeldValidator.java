@@ -0,0 +1,183 @@
+package server.models;
+
+import server.models.cards.CardRegistry;
+
+/**
+ * Stateless meld rules evaluated on the copy layers of a {@link PackedCardSet}.
+ * <p>
+ * Because card codes are laid out suit by suit, each suit is a 13 bit field of a layer where bit 0 is the ace.
+ * Sets and straights are then decided with a few shifts, masks and bit counts on local variables,
+ * without sorting and without allocating, so the methods can be called from any thread.
+ */
+public final class MeldValidator {
+    /********************************
+     ******** PUBLIC STATICS ********
+     ********************************/
+    public static final int MAX_MELD_SIZE = 14;
+    public static final int MAX_SET_SIZE = 4;
+
+    /********************************
+     ******** PRIVATE STATICS *******
+     ********************************/
+    private static final int RANKS = CardRegistry.RANKS_PER_SUIT;
+    private static final long SUIT_MASK = (1L << RANKS) - 1;
+    private static final long REGULAR_MASK = (1L << CardRegistry.JOKER_CODE) - 1;
+    private static final int ACE_HIGH_INDEX = RANKS;
+
+    /**
+     * CONSTRUCTOR
+     */
+    private MeldValidator() {
+    }
+
+    /**
+     * @param codes      card codes of the meld.
+     * @param length     number of codes to read from the array.
+     * @param minSetSize
+     * @return
+     */
+    public static boolean isAValidMeld(int[] codes, int length, int minSetSize) {
+        long first = 0;
+        long second = 0;
+        for (int i = 0; i < length; i++) {
+            long bit = 1L << codes[i];
+            if ((second & bit) != 0) {
+                // More copies than the deck has.
+                return false;
+            }
+            second |= first & bit;
+            first |= bit;
+        }
+        return isAValidMeld(first, second, minSetSize);
+    }
+
+    /**
+     * @param first      codes present at least once.
+     * @param second     codes present twice.
+     * @param minSetSize
+     * @return
+     */
+    public static boolean isAValidMeld(long first, long second, int minSetSize) {
+        int totalCount = Long.bitCount(first) + Long.bitCount(second);
+
+        // An empty set is always a valid meld regardless of minimum set size.
+        if (totalCount == 0) {
+            return true;
+        }
+
+        //Don't bother if set is not big enough.
+        if (totalCount < minSetSize) {
+            return false;
+        }
+
+        //A single card is always a valid meld.
+        if (totalCount == 1) {
+            return true;
+        }
+
+        // a valid meld can have max 14 cards.
+        if (totalCount > MAX_MELD_SIZE) {
+            return false;
+        }
+
+        //A valid meld may contain at most one Joker.
+        if (jokerCount(first, second) > 1) {
+            return false;
+        }
+
+        return isASet(first, second) || isAStraight(first, second);
+    }
+
+    /**
+     * @param first
+     * @param second
+     * @return
+     */
+    public static boolean isASet(long first, long second) {
+        // A set may contain maximum 4 cards.
+        if (Long.bitCount(first) + Long.bitCount(second) > MAX_SET_SIZE) {
+            return false;
+        }
+
+        // In a set all cards should have different suits.
+        if ((second & REGULAR_MASK) != 0) {
+            return false;
+        }
+
+        // In a set all cards should be of same rank.
+        return Long.bitCount(rankHistogram(first & REGULAR_MASK)) <= 1;
+    }
+
+    /**
+     * @param first
+     * @param second
+     * @return
+     */
+    public static boolean isAStraight(long first, long second) {
+        // In a straight all cards should be of different rank.
+        if ((second & REGULAR_MASK) != 0) {
+            return false;
+        }
+
+        // In a straight all cards should be of same suit.
+        long regular = first & REGULAR_MASK;
+        long ranks = 0;
+        for (int suit = 0; suit < CardRegistry.SUIT_COUNT; suit++) {
+            long suitRanks = (regular >>> (suit * RANKS)) & SUIT_MASK;
+            if (suitRanks != 0) {
+                if (ranks != 0) {
+                    return false;
+                }
+                ranks = suitRanks;
+            }
+        }
+
+        int cardCount = Long.bitCount(ranks);
+        if (cardCount <= 1) {
+            return true;
+        }
+
+        int missingCardsForAStraight = getMinRankDifference(ranks) - (cardCount - 1);
+        return missingCardsForAStraight <= jokerCount(first, second);
+    }
+
+    /**
+     * @param first
+     * @param second
+     * @return number of jokers in the layers.
+     */
+    public static int jokerCount(long first, long second) {
+        return (int) ((first >>> CardRegistry.JOKER_CODE) & 1L) + (int) ((second >>> CardRegistry.JOKER_CODE) & 1L);
+    }
+
+    /**
+     * Folds the four suit fields onto each other.
+     *
+     * @param regular
+     * @return 13 bit mask of the ranks present in any suit.
+     */
+    private static long rankHistogram(long regular) {
+        return (regular | (regular >>> RANKS) | (regular >>> (2 * RANKS)) | (regular >>> (3 * RANKS))) & SUIT_MASK;
+    }
+
+    /**
+     * The distance between the lowest and the highest rank, an ace may count either as 1 or as 14.
+     *
+     * @param ranks 13 bit mask with at least two ranks, bit 0 is the ace.
+     * @return
+     */
+    private static int getMinRankDifference(long ranks) {
+        int minRank = Long.numberOfTrailingZeros(ranks);
+        int maxRank = 63 - Long.numberOfLeadingZeros(ranks);
+        int rankDifference = maxRank - minRank;
+
+        if ((ranks & 1L) != 0) {
+            int rankDifference2 = ACE_HIGH_INDEX - Long.numberOfTrailingZeros(ranks & ~1L);
+            if (rankDifference > rankDifference2) {
+                rankDifference = rankDifference2;
+            }
+        }
+
+        return rankDifference;
+    }
+}
@@ -0,0 +1,339 @@
+package server.models;
+
+import server.models.cards.Card;
+import server.models.cards.CardRegistry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.StringJoiner;
+
+/**
+ * A multiset of cards stored as two 53-bit copy layers.
+ * <p>
+ * The Machiavelli deck is made of two standard decks, so every card identity (52 basics/aces plus the joker)
+ * appears at most twice. The set keeps one bit per {@link CardRegistry} code in each layer:
+ * a bit in {@code first} means at least one copy, a bit in {@code second} means two copies.
+ * Since codes are laid out suit by suit, every suit occupies a contiguous 13 bit field of a layer.
+ */
+public class PackedCardSet {
+    /********************************
+     ******** PUBLIC STATICS ********
+     ********************************/
+    public static final int MAX_COPIES = 2;
+
+    /********************************
+     ******** PRIVATES **************
+     ********************************/
+    private long first;
+    private long second;
+
+    /**
+     * CONSTRUCTOR
+     */
+    public PackedCardSet() {
+    }
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param cardSet
+     * @throws IllegalArgumentException if the set contains a card that can't be packed.
+     */
+    public PackedCardSet(CardSet cardSet) throws IllegalArgumentException {
+        join(cardSet);
+    }
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param cards
+     * @throws IllegalArgumentException if the collection contains a card that can't be packed.
+     */
+    public PackedCardSet(Collection<Card> cards) throws IllegalArgumentException {
+        addCards(cards);
+    }
+
+    /***************************************
+     *************** GETTERS **************
+     **************************************/
+
+    /**
+     * @return bit mask of the codes this set holds at least once.
+     */
+    public long getFirstLayer() {
+        return first;
+    }
+
+    /**
+     * @return bit mask of the codes this set holds twice.
+     */
+    public long getSecondLayer() {
+        return second;
+    }
+
+    /**
+     * @param code
+     * @return number of copies of the given code in this set.
+     */
+    public int count(int code) {
+        return (int) ((first >>> code) & 1L) + (int) ((second >>> code) & 1L);
+    }
+
+    /**
+     * @return total number of cards, jokers included.
+     */
+    public int totalCount() {
+        return Long.bitCount(first) + Long.bitCount(second);
+    }
+
+    /**
+     * @return number of jokers in this set.
+     */
+    public int jokerCount() {
+        return count(CardRegistry.JOKER_CODE);
+    }
+
+    /**
+     * @return sum of the point values of the cards in this set.
+     */
+    public int getPointValue() {
+        return pointValue(first) + pointValue(second);
+    }
+
+    /**
+     * @param layer
+     * @return
+     */
+    private static int pointValue(long layer) {
+        int pointValue = 0;
+        while (layer != 0) {
+            pointValue += CardRegistry.get(Long.numberOfTrailingZeros(layer)).getPointValue();
+            layer &= layer - 1;
+        }
+        return pointValue;
+    }
+
+    /**
+     * @return true if the set has no cards.
+     */
+    public boolean isEmpty() {
+        return first == 0;
+    }
+
+    /**
+     * Materializes the cards of this set in sorted order (rank, then suit, joker last).
+     *
+     * @return
+     */
+    public ArrayList<Card> getCards() {
+        ArrayList<Card> cards = new ArrayList<>(totalCount());
+        for (int rankIndex = 0; rankIndex < CardRegistry.RANKS_PER_SUIT; rankIndex++) {
+            for (int code = rankIndex; code < CardRegistry.JOKER_CODE; code += CardRegistry.RANKS_PER_SUIT) {
+                addCopies(cards, code);
+            }
+        }
+        addCopies(cards, CardRegistry.JOKER_CODE);
+        return cards;
+    }
+
+    /**
+     * @param cards
+     * @param code
+     */
+    private void addCopies(ArrayList<Card> cards, int code) {
+        for (int copy = count(code); copy > 0; copy--) {
+            cards.add(CardRegistry.get(code));
+        }
+    }
+
+    /***************************************
+     *************** MODIFIERS *************
+     **************************************/
+
+    /**
+     * @param code
+     * @throws IllegalArgumentException if the set already holds both copies of the card.
+     */
+    public void addCode(int code) throws IllegalArgumentException {
+        long bit = 1L << code;
+        if ((first & bit) == 0) {
+            first |= bit;
+        } else if ((second & bit) == 0) {
+            second |= bit;
+        } else {
+            throw new IllegalArgumentException("More than " + MAX_COPIES + " copies of " + CardRegistry.get(code));
+        }
+    }
+
+    /**
+     * @param card
+     * @throws IllegalArgumentException
+     */
+    public void addCard(Card card) throws IllegalArgumentException {
+        addCode(CardRegistry.codeOf(card));
+    }
+
+    /**
+     * @param cards
+     * @throws IllegalArgumentException
+     */
+    public void addCards(Collection<Card> cards) throws IllegalArgumentException {
+        for (Card card : cards) {
+            addCard(card);
+        }
+    }
+
+    /**
+     * @param cardSet
+     * @throws IllegalArgumentException
+     */
+    public void join(CardSet cardSet) throws IllegalArgumentException {
+        join(cardSet.getPackedCards());
+    }
+
+    /**
+     * Adds all cards of the given set with two bitwise operations.
+     *
+     * @param set
+     * @throws IllegalArgumentException if any card would end up with more than two copies.
+     */
+    public void join(PackedCardSet set) throws IllegalArgumentException {
+        if (((first & set.second) | (second & set.first)) != 0) {
+            throw new IllegalArgumentException("More than " + MAX_COPIES + " copies of a card");
+        }
+        second |= set.second | (first & set.first);
+        first |= set.first;
+    }
+
+    /**
+     * @param code
+     * @return false if the set doesn't contain the card.
+     */
+    public boolean removeCode(int code) {
+        long bit = 1L << code;
+        if ((second & bit) != 0) {
+            second &= ~bit;
+            return true;
+        }
+        if ((first & bit) != 0) {
+            first &= ~bit;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param card
+     * @return false if the set doesn't contain the card.
+     */
+    public boolean removeCard(Card card) {
+        try {
+            return removeCode(CardRegistry.codeOf(card));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * removes the given cards, cards that aren't in the set are ignored
+     *
+     * @param set
+     */
+    public void removeCards(PackedCardSet set) {
+        long newFirst = (first & ~set.first) | (second & ~set.second);
+        second &= ~set.first;
+        first = newFirst;
+    }
+
+    /**
+     * removes all cards in constant time
+     */
+    public void removeAllCards() {
+        first = 0;
+        second = 0;
+    }
+
+    /***************************************
+     *************** QUERIES ***************
+     **************************************/
+
+    /**
+     * @param set
+     * @return true if this set holds at least as many copies of every card as the given set.
+     */
+    public boolean superSetOf(PackedCardSet set) {
+        return (set.first & ~first) == 0 && (set.second & ~second) == 0;
+    }
+
+    /**
+     * @param set
+     * @return a new set holding the cards of this set that are not in the given set.
+     */
+    public PackedCardSet diff(PackedCardSet set) {
+        PackedCardSet diff = getSnapshot();
+        diff.removeCards(set);
+        return diff;
+    }
+
+    /**
+     * @param minSetSize
+     * @return
+     */
+    public boolean isAValidMeld(int minSetSize) {
+        return MeldTable.isAValidMeld(first, second, minSetSize);
+    }
+
+    /**
+     * @return
+     */
+    public PackedCardSet getSnapshot() {
+        PackedCardSet snapshot = new PackedCardSet();
+        snapshot.first = first;
+        snapshot.second = second;
+        return snapshot;
+    }
+
+    /**
+     * @return the cards of this set as a regular CardSet.
+     */
+    public CardSet toCardSet() {
+        return new CardSet(getCards());
+    }
+
+    /**
+     * 2 sets holding the same number of copies of every card are equal.
+     *
+     * @param obj
+     * @return
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this)
+            return true;
+        if (!(obj instanceof PackedCardSet))
+            return false;
+
+        PackedCardSet set = (PackedCardSet) obj;
+        return first == set.first && second == set.second;
+    }
+
+    /**
+     * @return
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(first * 31 + second);
+    }
+
+    /**
+     * @return
+     */
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(",");
+        for (Card card : getCards()) {
+            joiner.add(card.toString());
+        }
+        return joiner.toString();
+    }
+}
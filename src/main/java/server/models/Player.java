@@ -14,6 +14,7 @@ public class Player {
     private CardSet hand;
     private int pointValue;
     private int seatNumber;
+    private Machiavelli game;
 
     /**
      * CONSTRUCTOR
@@ -70,6 +71,15 @@ public class Player {
         return hand;
     }
 
+    /**
+     * gets the game this player is seated at
+     *
+     * @return
+     */
+    public Machiavelli getGame() {
+        return game;
+    }
+
     /**
      * gets pointValue
      *
@@ -91,6 +101,15 @@ public class Player {
         this.hand = new CardSet(hand);
     }
 
+    /**
+     * sets this player's hand
+     *
+     * @param hand
+     */
+    public void setHand(CardSet hand) {
+        this.hand = hand;
+    }
+
     /**
      * sets this player's pointValue
      *
@@ -109,6 +128,15 @@ public class Player {
         this.name = name;
     }
 
+    /**
+     * sets the game this player is seated at
+     *
+     * @param game
+     */
+    public void setGame(Machiavelli game) {
+        this.game = game;
+    }
+
     /**
      * sets this player's seatNumber
      *
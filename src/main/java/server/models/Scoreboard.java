@@ -0,0 +1,97 @@
+package server.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scores of the games played at one table.
+ * <p>
+ * At the end of a game every player but the winner takes the point values of the cards left in hand as penalty.
+ * Hands keep their point total up to date as cards are drawn and played, so scoring a game only reads one
+ * number per player. The running match total of a player is its {@link Player#getPointValue()}, lower is better.
+ * Like the rest of the game state, the scoreboard is read and written on the game loop.
+ */
+public class Scoreboard {
+    /********************************
+     ******** PRIVATES **************
+     ********************************/
+    private int gamesPlayed = 0;
+    private Player lastWinner;
+    private final Map<Player, Integer> lastResults = new LinkedHashMap<>();
+
+    /***************************************
+     *************** GETTERS **************
+     **************************************/
+
+    /**
+     * @param player
+     * @return the penalty the player would take if the game ended now.
+     */
+    public int getHandPenalty(Player player) {
+        return player.getHand().getPointValue();
+    }
+
+    /**
+     * @param player
+     * @return penalty points the player has collected over all the games at this table.
+     */
+    public int getMatchTotal(Player player) {
+        return player.getPointValue();
+    }
+
+    /**
+     * @return number of games finished at this table.
+     */
+    public int getGamesPlayed() {
+        return gamesPlayed;
+    }
+
+    /**
+     * @return winner of the last finished game, null if no game has finished yet.
+     */
+    public Player getLastWinner() {
+        return lastWinner;
+    }
+
+    /**
+     * @return penalty of every player in the last finished game.
+     */
+    public Map<Player, Integer> getLastResults() {
+        return Collections.unmodifiableMap(lastResults);
+    }
+
+    /**
+     * @param players
+     * @return the players ordered by match total, the leader first.
+     */
+    public List<Player> getLeaderboard(List<Player> players) {
+        List<Player> leaderboard = new ArrayList<>(players);
+        leaderboard.sort(Comparator.comparingInt(Player::getPointValue));
+        return leaderboard;
+    }
+
+    /***************************************
+     *************** MODIFIERS *************
+     **************************************/
+
+    /**
+     * Scores a finished game and adds the penalties to the match totals.
+     *
+     * @param winner
+     * @param players everybody who played the game, the winner included.
+     */
+    public void recordGame(Player winner, List<Player> players) {
+        lastResults.clear();
+        for (Player player : players) {
+            int penalty = player == winner ? 0 : getHandPenalty(player);
+            lastResults.put(player, penalty);
+            player.setPointValue(player.getPointValue() + penalty);
+        }
+        lastWinner = winner;
+        gamesPlayed++;
+    }
+}
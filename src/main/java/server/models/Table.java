@@ -3,18 +3,27 @@ package server.models;
 import server.models.cards.*;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Stack;
+import java.util.SplittableRandom;
 
 public class Table {
 
     /********************************
      ******** PRIVATES **************
      ********************************/
-    private Stack<Card> deck;
+    private Deck deck;
     private ArrayList<CardSet> cardSets;
 
+    /**
+     * Running count of every card in cardSets, kept up to date as moves are committed.
+     */
+    private PackedCardSet cardsOnTable;
+
+    /**
+     * Increases every time the sets on the table change. Moves carry the version they were built against.
+     */
+    private int version = 0;
+
     /**
      * cards that have been taken from a set that have to be played
      */
@@ -24,9 +33,18 @@ public class Table {
      * CONSTRUCTOR
      */
     public Table() {
-        deck = new Stack<>();
+        this(new Deck(new SplittableRandom()));
+    }
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param deck a full, shuffled deck.
+     */
+    public Table(Deck deck) {
+        this.deck = deck;
         cardSets = new ArrayList<>();
-        initMachiavelliDeck();
+        cardsOnTable = new PackedCardSet();
     }
 
 
@@ -38,7 +56,7 @@ public class Table {
      *
      * @return
      */
-    public Stack<Card> getDeck() {
+    public Deck getDeck() {
         return deck;
     }
 
@@ -55,11 +73,26 @@ public class Table {
      * @return
      */
     public CardSet getAllCardsInASet() {
-        CardSet fullSet = new CardSet();
-        for (CardSet set : cardSets) {
-            fullSet.join(set);
-        }
-        return fullSet;
+        return new CardSet(cardsOnTable);
+    }
+
+    /**
+     * gets the count of every card on the table without rebuilding it from the sets.
+     * The returned index is owned by the table and must not be modified.
+     *
+     * @return
+     */
+    public PackedCardSet getCardsOnTable() {
+        return cardsOnTable;
+    }
+
+    /**
+     * gets the version of the sets on the table
+     *
+     * @return
+     */
+    public int getVersion() {
+        return version;
     }
 
     /*******************************************
@@ -69,7 +102,7 @@ public class Table {
     /**
      * @param deck
      */
-    public void setDeck(Stack<Card> deck) {
+    public void setDeck(Deck deck) {
         this.deck = deck;
     }
 
@@ -77,7 +110,25 @@ public class Table {
      * @param cardSets
      */
     public void setCardSets(List<CardSet> cardSets) {
+        PackedCardSet cardsOnTable = new PackedCardSet();
+        for (CardSet set : cardSets) {
+            cardsOnTable.join(set);
+        }
+        this.cardSets = new ArrayList<>(cardSets);
+        this.cardsOnTable = cardsOnTable;
+        version++;
+    }
+
+    /**
+     * Replaces the sets with the ones of a validated move and adds the played cards to the running index.
+     *
+     * @param cardSets    the sets on the table after the move.
+     * @param playedCards the cards the player put on the table.
+     */
+    public void commitMove(List<CardSet> cardSets, CardSet playedCards) {
+        cardsOnTable.join(playedCards);
         this.cardSets = new ArrayList<>(cardSets);
+        version++;
     }
 
     /***********************************************
@@ -87,7 +138,7 @@ public class Table {
      * Shuffles the deck
      */
     public void shuffleDeck() {
-        Collections.shuffle(deck);
+        deck.shuffle();
     }
 
 
@@ -95,63 +146,20 @@ public class Table {
      * *************PRIVATE HELPERS*********************
      ***************************************************/
     /**
-     * creates a deck from two standard decks
+     * puts the two standard decks back together and shuffles them
      */
     public void initMachiavelliDeck() {
-        //2 heart of 2s
-        //2 spade of 2s
-        //2 diamon of 2s
-        //and so on
-        deck = new Stack<>();
-        deck.addAll(generateStandardDeck());
-        deck.addAll(generateStandardDeck());
-        shuffleDeck();
+        deck.reset();
     }
 
-
     /**
-     * generates a standard deck
-     *
-     * @return
+     * Gets the table ready for a new game, reusing the deck and the set storage.
+     * The version moves on so moves built during the previous game are rejected.
      */
-    private ArrayList<Card> generateStandardDeck() {
-        ArrayList<Card> standardDeck = new ArrayList<>();
-        int cardID = 0;
-
-        try {
-            int rank = 1;
-            standardDeck.add(new Ace(Suit.CLUBS, cardID));
-            cardID++;
-            standardDeck.add(new Ace(Suit.DIAMONDS, cardID));
-            cardID++;
-            standardDeck.add(new Ace(Suit.HEARTS, cardID));
-            cardID++;
-            standardDeck.add(new Ace(Suit.SPADES, cardID));
-            cardID++;
-        } catch (IllegalArgumentException e) {
-            e.printStackTrace();
-        }
-        for (int rank = 2; rank < 14; rank++) {
-            try {
-                standardDeck.add(new Basic(Suit.CLUBS, rank, cardID));
-                cardID++;
-                standardDeck.add(new Basic(Suit.DIAMONDS, rank, cardID));
-                cardID++;
-                standardDeck.add(new Basic(Suit.HEARTS, rank, cardID));
-                cardID++;
-                standardDeck.add(new Basic(Suit.SPADES, rank, cardID));
-                cardID++;
-            } catch (IllegalArgumentException e) {
-                e.printStackTrace();
-            }
-        }
-
-        try {
-            int rank = 15;
-            standardDeck.add(new Joker(Suit.JOKER, cardID));
-        } catch (IllegalArgumentException e) {
-            e.printStackTrace();
-        }
-        return standardDeck;
+    public void reset() {
+        initMachiavelliDeck();
+        cardSets.clear();
+        cardsOnTable.removeAllCards();
+        version++;
     }
 }
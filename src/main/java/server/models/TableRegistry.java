@@ -0,0 +1,129 @@
+package server.models;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts all the games of the server process.
+ * <p>
+ * Games are created on demand as connections arrive, looked up by id, and retired once their last player leaves.
+ * Every connection is routed to the oldest game that still has a free seat, so tables fill up one after the other.
+ */
+public class TableRegistry {
+    /**
+     * PRIVATE STATICS
+     */
+    private static TableRegistry ourInstance = new TableRegistry();
+
+    /********************************
+     ******** PRIVATES **************
+     ********************************/
+    private final Map<Integer, Machiavelli> games = new ConcurrentHashMap<>();
+    private final AtomicInteger nextGameId = new AtomicInteger(1);
+
+    /**
+     * Games with a free seat in creation order, guarded by the registry lock.
+     */
+    private final LinkedHashSet<Machiavelli> openGames = new LinkedHashSet<>();
+    private int numOfPlayers;
+
+    public static TableRegistry getInstance() {
+        return ourInstance;
+    }
+
+    /**
+     * CONSTRUCTOR
+     */
+    TableRegistry() {
+    }
+
+    /**
+     * @param numOfPlayers number of players seated at every table.
+     */
+    public synchronized void initialize(int numOfPlayers) {
+        this.numOfPlayers = numOfPlayers;
+    }
+
+    /***************************************
+     *************** GETTERS **************
+     **************************************/
+
+    /**
+     * @param gameId
+     * @return the game or null if there is no such game.
+     */
+    public Machiavelli getGame(int gameId) {
+        return games.get(gameId);
+    }
+
+    /**
+     * @return number of games currently hosted.
+     */
+    public int gameCount() {
+        return games.size();
+    }
+
+    /***************************************
+     *************** MODIFIERS *************
+     **************************************/
+
+    /**
+     * @return a new empty game.
+     */
+    public Machiavelli createGame() {
+        Machiavelli game = new Machiavelli(this, nextGameId.getAndIncrement(), numOfPlayers,
+                ThreadLocalRandom.current().nextLong());
+        games.put(game.getId(), game);
+        return game;
+    }
+
+    /**
+     * Reserves a seat for a new connection, creating a game when all the others are full.
+     * The player itself is seated later, on the game loop of the returned game.
+     *
+     * @return the game the connection belongs to.
+     */
+    public synchronized Machiavelli routeConnection() {
+        Iterator<Machiavelli> iterator = openGames.iterator();
+        while (iterator.hasNext()) {
+            Machiavelli game = iterator.next();
+            if (game.reserveSeat()) {
+                return game;
+            }
+            iterator.remove();
+        }
+
+        Machiavelli game = createGame();
+        game.reserveSeat();
+        openGames.add(game);
+        return game;
+    }
+
+    /**
+     * Called by a game when one of its seats is released.
+     * The game is offered to the next connections, or retired if nobody is left.
+     *
+     * @param game
+     */
+    synchronized void seatReleased(Machiavelli game) {
+        if (game.reservedSeatCount() == 0) {
+            retireGame(game.getId());
+        } else {
+            openGames.add(game);
+        }
+    }
+
+    /**
+     * @param gameId
+     */
+    public synchronized void retireGame(int gameId) {
+        Machiavelli game = games.remove(gameId);
+        if (game != null) {
+            openGames.remove(game);
+        }
+    }
+}
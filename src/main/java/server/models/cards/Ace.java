@@ -19,6 +19,7 @@ public class Ace extends Changeable {
      */
     @Override
     public void changeRank(int rank) throws InvalidCardRankException {
+        checkMutable();
         if (rank == 1) {
             this.rank = rank;
         }
@@ -16,6 +16,7 @@ public class Card implements Comparable<Card> {
     protected boolean hidden = false;
     protected boolean dropTarget = false;
     protected boolean joker = false;
+    private boolean immutable = false;
     public static final String BACK_OF_CARD_IMAGE = "images/b.png";
     public static final String DROP_TARGET_IMAGE = "images/dropTarget.png";
     public static final String NO_CARD_IMAGE = "images/nocards.png";
@@ -44,49 +45,21 @@ public class Card implements Comparable<Card> {
     }
 
     /**
+     * Returns the shared registry instance for the given card text.
+     *
      * @param cardText
      * @return
      * @throws IllegalArgumentException
      */
     public static Card fromString(String cardText) throws IllegalArgumentException {
-        Suit suit = Suit.JOKER;
-        int rank = 0;
-
-        if (cardText.equals("joker")) {
-            return new Joker(Suit.JOKER, 15);
+        int code = CardRegistry.parse(cardText);
+        if (code != CardRegistry.INVALID_CODE) {
+            return CardRegistry.get(code);
         }
-        if (cardText.equals("hidden")) {
+        if (cardText.equals(HiddenCard.getAsString())) {
             return HiddenCard.getInstance();
         }
-
-        if (cardText.endsWith("s")) {
-            suit = Suit.SPADES;
-        } else if (cardText.endsWith("h")) {
-            suit = Suit.HEARTS;
-        } else if (cardText.endsWith("d")) {
-            suit = Suit.DIAMONDS;
-        } else if (cardText.endsWith("c")) {
-            suit = Suit.CLUBS;
-        }
-
-        String rankText = cardText.substring(0, cardText.length() - 1);
-        switch (rankText) {
-            case "a":
-                return new Ace(suit, 14);
-            case "j":
-                rank = 11;
-                break;
-            case "q":
-                rank = 12;
-                break;
-            case "k":
-                rank = 13;
-                break;
-            default:
-                rank = Integer.parseInt(rankText);
-        }
-        return new Basic(suit, rank, rank);
-
+        throw new IllegalArgumentException("Invalid card: " + cardText);
     }
 
 
@@ -109,9 +82,9 @@ public class Card implements Comparable<Card> {
     }
 
     /**
-     * @return
+     * @return penalty points of the card when it is left in a hand at the end of the game.
      */
-    int getPointValue() {
+    public int getPointValue() {
         return pointValue;
     }
 
@@ -197,9 +170,33 @@ public class Card implements Comparable<Card> {
      * @param suit
      */
     public void setSuit(Suit suit) {
+        checkMutable();
         this.suit = suit;
     }
 
+    /**
+     * Marks the card as a shared registry instance that can't be changed anymore.
+     */
+    void freeze() {
+        immutable = true;
+    }
+
+    /**
+     * @return true if this is a shared registry instance.
+     */
+    public boolean isImmutable() {
+        return immutable;
+    }
+
+    /**
+     * @throws UnsupportedOperationException if this is a shared registry instance.
+     */
+    protected void checkMutable() throws UnsupportedOperationException {
+        if (immutable) {
+            throw new UnsupportedOperationException("Registered cards can't be changed: " + this);
+        }
+    }
+
     /**
      * @return
      */
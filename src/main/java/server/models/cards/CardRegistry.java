@@ -0,0 +1,204 @@
+package server.models.cards;
+
+import java.util.Arrays;
+
+/**
+ * Registry of the 53 distinct card identities of the Machiavelli deck.
+ * <p>
+ * Every identity is interned once and addressed by a dense code, cards are laid out suit by suit
+ * ({@code suit * 13 + rank - 1}, aces being rank 1) so that each suit occupies a contiguous range of 13 codes.
+ * The joker takes the last code. Registered cards are immutable and are shared by the deck, the card sets and
+ * the commands, so parsing a command doesn't create any card objects.
+ */
+public final class CardRegistry {
+    /********************************
+     ******** PUBLIC STATICS ********
+     ********************************/
+    public static final int RANKS_PER_SUIT = 13;
+    public static final int SUIT_COUNT = 4;
+    public static final int JOKER_CODE = SUIT_COUNT * RANKS_PER_SUIT;
+    public static final int CODE_COUNT = JOKER_CODE + 1;
+    public static final int INVALID_CODE = -1;
+
+    /********************************
+     ******** PRIVATE STATICS *******
+     ********************************/
+    private static final String JOKER_TEXT = "joker";
+    private static final Card[] CARDS = new Card[CODE_COUNT];
+
+    /**
+     * Lookup tables indexed by ASCII character. Ranks are stored as rank - 1 and suits as their ordinal,
+     * -1 marks characters that are not valid in that position.
+     */
+    private static final byte[] RANK_BY_CHAR = new byte[128];
+    private static final byte[] SUIT_BY_CHAR = new byte[128];
+
+    static {
+        Arrays.fill(RANK_BY_CHAR, (byte) -1);
+        Arrays.fill(SUIT_BY_CHAR, (byte) -1);
+        RANK_BY_CHAR['a'] = 0;
+        for (char c = '2'; c <= '9'; c++) {
+            RANK_BY_CHAR[c] = (byte) (c - '1');
+        }
+        RANK_BY_CHAR['j'] = 10;
+        RANK_BY_CHAR['q'] = 11;
+        RANK_BY_CHAR['k'] = 12;
+
+        Suit[] suits = {Suit.CLUBS, Suit.DIAMONDS, Suit.SPADES, Suit.HEARTS};
+        for (Suit suit : suits) {
+            SUIT_BY_CHAR[Character.toLowerCase(suit.name().charAt(0))] = (byte) suit.ordinal();
+
+            int aceCode = codeOf(suit, 1);
+            CARDS[aceCode] = new Ace(suit, aceCode);
+            for (int rank = 2; rank <= RANKS_PER_SUIT; rank++) {
+                int code = codeOf(suit, rank);
+                CARDS[code] = new Basic(suit, rank, code);
+            }
+        }
+        CARDS[JOKER_CODE] = new Joker(Suit.JOKER, JOKER_CODE);
+
+        for (Card card : CARDS) {
+            card.freeze();
+        }
+    }
+
+    /**
+     * CONSTRUCTOR
+     */
+    private CardRegistry() {
+    }
+
+    /***************************************
+     *************** CODES ****************
+     **************************************/
+
+    /**
+     * @param suit one of the four regular suits.
+     * @param rank 1 for aces, 2..13 for basic cards.
+     * @return the dense code of the card.
+     */
+    public static int codeOf(Suit suit, int rank) {
+        return suit.ordinal() * RANKS_PER_SUIT + rank - 1;
+    }
+
+    /**
+     * gets the dense code of the given card
+     *
+     * @param card
+     * @return
+     * @throws IllegalArgumentException for hidden and drop target cards.
+     */
+    public static int codeOf(Card card) throws IllegalArgumentException {
+        if (card.isImmutable()) {
+            return card.getId();
+        }
+        if (card.isJoker()) {
+            return JOKER_CODE;
+        }
+        if (card.isHidden() || card.isDropTarget() || card.getSuit().ordinal() >= SUIT_COUNT) {
+            throw new IllegalArgumentException("Card is not in the deck: " + card);
+        }
+        int rank = card instanceof Ace ? 1 : card.getRank();
+        if (rank < 1 || rank > RANKS_PER_SUIT) {
+            throw new IllegalArgumentException("Card is not in the deck: " + card);
+        }
+        return codeOf(card.getSuit(), rank);
+    }
+
+    /**
+     * @param code
+     * @return the shared card instance for the given code.
+     */
+    public static Card get(int code) {
+        return CARDS[code];
+    }
+
+    /**
+     * @param code
+     * @return 0..12 for regular cards, aces being 0.
+     */
+    public static int rankIndexOf(int code) {
+        return code % RANKS_PER_SUIT;
+    }
+
+    /**
+     * @param code
+     * @return the suit ordinal of a regular card.
+     */
+    public static int suitIndexOf(int code) {
+        return code / RANKS_PER_SUIT;
+    }
+
+    /***************************************
+     *************** PARSING ***************
+     **************************************/
+
+    /**
+     * Maps a card token such as "10h", "as" or "joker" to its code without allocating.
+     *
+     * @param text
+     * @param start index of the first character of the token.
+     * @param end   index after the last character of the token.
+     * @return the code of the card, or INVALID_CODE if the token isn't a card in the deck.
+     */
+    public static int parse(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length < 2) {
+            return INVALID_CODE;
+        }
+        if (length == JOKER_TEXT.length() && regionMatches(text, start, JOKER_TEXT)) {
+            return JOKER_CODE;
+        }
+
+        int suit = lookup(SUIT_BY_CHAR, text.charAt(end - 1));
+        if (suit < 0) {
+            return INVALID_CODE;
+        }
+
+        int rankIndex;
+        if (length == 2) {
+            rankIndex = lookup(RANK_BY_CHAR, text.charAt(start));
+        } else if (length == 3 && text.charAt(start) == '1' && text.charAt(start + 1) == '0') {
+            rankIndex = 9;
+        } else {
+            return INVALID_CODE;
+        }
+
+        if (rankIndex < 0) {
+            return INVALID_CODE;
+        }
+        return suit * RANKS_PER_SUIT + rankIndex;
+    }
+
+    /**
+     * @param text
+     * @return the code of the card, or INVALID_CODE if the text isn't a card in the deck.
+     */
+    public static int parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * @param table
+     * @param c
+     * @return
+     */
+    private static int lookup(byte[] table, char c) {
+        return c < table.length ? table[c] : -1;
+    }
+
+    /**
+     * @param text
+     * @param start
+     * @param expected
+     * @return
+     */
+    private static boolean regionMatches(CharSequence text, int start, String expected) {
+        for (int i = 0; i < expected.length(); i++) {
+            if (text.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
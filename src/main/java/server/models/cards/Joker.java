@@ -23,6 +23,7 @@ public class Joker extends Changeable {
      */
     @Override
     public void changeRank(int rank) throws InvalidCardRankException {
+        checkMutable();
         if (rank < 1 || rank > 14) {
             throw new InvalidCardRankException();
         } else {
@@ -2,11 +2,12 @@ package server.proactor;
 
 import commands.Command;
 import server.ClientMessageSender;
+import server.IdleReaper;
 import server.models.Machiavelli;
 import server.models.Player;
+import server.models.TableRegistry;
 import utils.constants;
 
-import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousServerSocketChannel;
 import java.nio.channels.AsynchronousSocketChannel;
 import java.nio.channels.CompletionHandler;
@@ -24,12 +25,13 @@ public class AcceptCompletionHandler implements CompletionHandler<AsynchronousSo
         SessionState newSessionState = new SessionState();
         listener.accept(newSessionState, this);
 
-        acceptPlayer(socketChannel, sessionState);
+        Machiavelli machiavelli = TableRegistry.getInstance().routeConnection();
+        ReadCompletionHandler readHandler = new ReadCompletionHandler(socketChannel, sessionState);
+        machiavelli.submit(() -> acceptPlayer(machiavelli, socketChannel, sessionState, readHandler));
 
         // handle this connection
-        ByteBuffer inputBuffer = ByteBuffer.allocate(512);
-        ReadCompletionHandler readCompletionHandler = new ReadCompletionHandler(socketChannel, inputBuffer);
-        socketChannel.read(inputBuffer, sessionState, readCompletionHandler);
+        readHandler.watchHeartbeat(IdleReaper.getInstance());
+        readHandler.start(sessionState);
     }
 
     @Override
@@ -37,14 +39,27 @@ public class AcceptCompletionHandler implements CompletionHandler<AsynchronousSo
         // Handle connection failure...
     }
 
-    private void acceptPlayer(AsynchronousSocketChannel clientSocket, SessionState sessionState) {
-        Machiavelli machiavelli = Machiavelli.getInstance();
-
+    /**
+     * Runs on the game loop.
+     *
+     * @param machiavelli
+     * @param clientSocket
+     * @param sessionState
+     * @param readHandler  reads the commands of the connection.
+     */
+    private void acceptPlayer(Machiavelli machiavelli, AsynchronousSocketChannel clientSocket, SessionState sessionState,
+                              ReadCompletionHandler readHandler) {
         if (machiavelli.isTableFull()) {
             ClientMessageSender.sendCommand(clientSocket, Command.CommandNames.TABLE_IS_FULL);
+            WriteCompletionHandler.getHandler(clientSocket).closeWhenWritten();
+            machiavelli.releaseSeat();
         } else {
             Player player = machiavelli.addPlayer();
-            sessionState.setProperty("player",player);
+            if (!readHandler.seatPlayer(player, sessionState)) {
+                // The client left while the connection waited for the game loop.
+                machiavelli.cancelSeating(player);
+                return;
+            }
 
             ClientMessageSender.getInstance().registerPlayer(player, clientSocket);
             machiavelli.introducePlayer(player, constants.GameMode.PROACTIVE);
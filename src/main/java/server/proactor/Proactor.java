@@ -2,14 +2,28 @@ package server.proactor;
 
 import server.ServerModeRunner;
 
+import java.nio.channels.AsynchronousChannelGroup;
+import java.util.concurrent.TimeUnit;
+
 public class Proactor implements ServerModeRunner {
+    private final AsynchronousChannelGroup channelGroup;
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param channelGroup group running the completion handlers.
+     */
+    public Proactor(AsynchronousChannelGroup channelGroup) {
+        this.channelGroup = channelGroup;
+    }
 
     @Override
     public void run() {
-        // Sleep indefinitely since otherwise the JVM would terminate
-        while (true) {
+        // The completion threads are daemons, so the server thread waits for the group since otherwise the JVM
+        // would terminate.
+        while (!channelGroup.isTerminated()) {
             try {
-                Thread.sleep(Long.MAX_VALUE);
+                channelGroup.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
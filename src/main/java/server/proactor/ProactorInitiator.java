@@ -2,16 +2,49 @@ package server.proactor;
 
 import server.ServerModeInitiator;
 import server.ServerModeRunner;
+import utils.constants;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.channels.AsynchronousChannelGroup;
 import java.nio.channels.AsynchronousServerSocketChannel;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Sets up the proactive mode: the listener and every accepted channel belong to one channel group, whose fixed pool
+ * of threads runs all the completion handlers.
+ */
 public class ProactorInitiator implements ServerModeInitiator {
     private Proactor proactor = null;
+    private final AsynchronousChannelGroup channelGroup;
 
+    /**
+     * CONSTRUCTOR
+     * Starts one completion thread per core.
+     *
+     * @param address
+     * @throws IOException
+     */
     public ProactorInitiator(InetSocketAddress address) throws IOException {
-        final AsynchronousServerSocketChannel listener = AsynchronousServerSocketChannel.open().bind(address);
+        this(address, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param address
+     * @param threadCount number of threads running the completion handlers.
+     * @throws IOException
+     */
+    public ProactorInitiator(InetSocketAddress address, int threadCount) throws IOException {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("There must be at least one completion thread");
+        }
+        channelGroup = AsynchronousChannelGroup.withFixedThreadPool(threadCount, newThreadFactory());
+        // Accepted channels join the group of their listener.
+        final AsynchronousServerSocketChannel listener = AsynchronousServerSocketChannel.open(channelGroup)
+                .bind(address, constants.ACCEPT_BACKLOG);
         AcceptCompletionHandler acceptCompletionHandler = new AcceptCompletionHandler(listener);
 
         SessionState state = new SessionState();
@@ -20,7 +53,21 @@ public class ProactorInitiator implements ServerModeInitiator {
 
     @Override
     public ServerModeRunner initiateMode() throws Exception {
-        proactor = new Proactor();
+        proactor = new Proactor(channelGroup);
         return proactor;
     }
+
+    /****** PRIVATES ******/
+
+    /**
+     * @return factory of the named daemon threads of the channel group.
+     */
+    private static ThreadFactory newThreadFactory() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "proactor-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
 }
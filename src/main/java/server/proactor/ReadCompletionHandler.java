@@ -1,52 +1,148 @@
 package server.proactor;
 
+import commands.Command;
+import server.BufferPool;
+import server.ClientMessageSender;
+import server.FrameDecoder;
+import server.IdleReaper;
 import server.models.Machiavelli;
 import server.models.Player;
 import server.reactor.ClientCommandProcessor;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousSocketChannel;
 import java.nio.channels.CompletionHandler;
 
+/**
+ * Reads the commands of one client.
+ * <p>
+ * The connection reads into a direct buffer from the shared pool, held until the client disconnects, and the frame
+ * decoder turns the bytes into commands however the client's writes were split or merged. Commands go straight from
+ * the read buffer to the decoder, so a read allocates nothing but the strings of the commands it completes.
+ */
 public class ReadCompletionHandler implements CompletionHandler<Integer, SessionState> {
 
-    private AsynchronousSocketChannel socketChannel;
-    private ByteBuffer inputBuffer;
+    private final AsynchronousSocketChannel socketChannel;
+    private final ByteBuffer inputBuffer;
+    private final FrameDecoder decoder;
 
-    public ReadCompletionHandler(AsynchronousSocketChannel socketChannel, ByteBuffer inputBuffer) {
+    /**
+     * Null until the connection is watched.
+     */
+    private volatile IdleReaper.Heartbeat heartbeat;
+
+    /**
+     * Guarded by this handler.
+     */
+    private boolean disconnected = false;
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param socketChannel
+     * @param sessionState  session of the connection, the player is looked up in it for every command.
+     */
+    public ReadCompletionHandler(AsynchronousSocketChannel socketChannel, SessionState sessionState) {
         this.socketChannel = socketChannel;
-        this.inputBuffer = inputBuffer;
+        this.inputBuffer = BufferPool.getInstance().acquire(BufferPool.BUFFER_SIZE);
+        // Get the player who sends the command from the session, it is set once the game loop seats the player.
+        this.decoder = new FrameDecoder(frame ->
+                ClientCommandProcessor.processCommand(frame, (Player) sessionState.getProperty("player")));
+    }
+
+    /**
+     * Starts reading, the handler reads the next commands by itself until the client disconnects.
+     *
+     * @param sessionState
+     */
+    public void start(SessionState sessionState) {
+        socketChannel.read(inputBuffer, sessionState, this);
+    }
+
+    /**
+     * Closes the connection once the client has stopped answering for too long. Closing the channel fails the pending
+     * read, which disconnects the player.
+     *
+     * @param reaper
+     */
+    public void watchHeartbeat(IdleReaper reaper) {
+        heartbeat = reaper.watch(() -> ClientMessageSender.sendCommand(socketChannel, Command.CommandNames.PING),
+                () -> WriteCompletionHandler.removeHandler(socketChannel));
+    }
+
+    /**
+     * Seats the player, unless the client has disconnected already. Once seated, the disconnection lets the game know
+     * the player has left.
+     *
+     * @param player
+     * @param sessionState
+     * @return false if the client has disconnected, the player isn't seated then.
+     */
+    public synchronized boolean seatPlayer(Player player, SessionState sessionState) {
+        if (disconnected) {
+            return false;
+        }
+        sessionState.setProperty("player", player);
+        return true;
     }
 
     @Override
     public void completed(Integer bytesRead, SessionState sessionState) {
-        // Get the player who sends this message, from the session.
-        Player player = (Player) sessionState.getProperty("player");
-
         if (bytesRead == -1) {
-            //TODO: Use another ServerCommand to let the server know this client is disconnected. And don't use Machiavelli here.
-            Machiavelli.getInstance().playerLeftTheGame(player);
+            disconnect(sessionState);
             return;
         }
+        IdleReaper.Heartbeat heartbeat = this.heartbeat;
+        if (heartbeat != null) {
+            heartbeat.touch();
+        }
 
-        byte[] buffer = new byte[bytesRead];
-
-        // Rewind the input buffer to read from the beginning
-        inputBuffer.rewind();
-
-        // Get the message from the buffer to string
-        inputBuffer.get(buffer);
-        String message = new String(buffer);
-
-        ClientCommandProcessor.processCommand(message, player);
-
+        inputBuffer.flip();
+        try {
+            // Commands go to the game loop of the player as soon as their EOC arrives.
+            decoder.decode(inputBuffer);
+        } catch (IOException e) {
+            e.printStackTrace();
+            disconnect(sessionState);
+            return;
+        }
         inputBuffer.clear();
         // Read the next command when it arrives
         socketChannel.read(inputBuffer, sessionState, this);
     }
 
     @Override
-    public void failed(Throwable exc, SessionState attachment) {
-        //Handle read failure.....
+    public void failed(Throwable exc, SessionState sessionState) {
+        disconnect(sessionState);
+    }
+
+    /****** PRIVATES ******/
+
+    /**
+     * Closes the channel, drops its write handler, gives the read buffer back and lets the game know the player has
+     * left. Called once, no read is pending any more.
+     *
+     * @param sessionState
+     */
+    private void disconnect(SessionState sessionState) {
+        IdleReaper.Heartbeat heartbeat = this.heartbeat;
+        if (heartbeat != null) {
+            heartbeat.cancel();
+        }
+        BufferPool.getInstance().release(inputBuffer);
+        WriteCompletionHandler.removeHandler(socketChannel);
+
+        //TODO: Use another ServerCommand to let the server know this client is disconnected. And don't use Machiavelli here.
+        // Either seatPlayer sees the client disconnected, or the player it seated is seen here.
+        Player player;
+        synchronized (this) {
+            disconnected = true;
+            player = (Player) sessionState.getProperty("player");
+        }
+        if (player != null) {
+            Machiavelli machiavelli = player.getGame();
+            machiavelli.submit(() -> machiavelli.playerLeftTheGame(player));
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,89 +1,327 @@
 package server.proactor;
 
+import server.OutboundLimits;
+import server.SharedBuffer;
+
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousSocketChannel;
 import java.nio.channels.CompletionHandler;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Write pipeline of one client channel.
+ * <p>
+ * Only one write may be pending on an asynchronous channel at a time, so commands are queued and written one after
+ * the other in the order they were sent. Game loops and completion threads all send concurrently: the queue is
+ * lock-free and whoever flips the writing flag starts the next write. A write that only got part of its buffer out
+ * is re-issued for the rest before the next command goes. How much may stay queued is bounded by the
+ * {@link OutboundLimits} of the handler.
+ */
 public class WriteCompletionHandler implements CompletionHandler<Integer, SessionState> {
-    private AsynchronousSocketChannel socketChannel;
-	private boolean writing;
-    private static Map<AsynchronousSocketChannel, WriteCompletionHandler> handlers = new HashMap<>();
-    private Queue<DataToWrite> writeQueue = new LinkedList<>();
-
-    // Create a new handler or return the previously created one based on the socketChannel.    
-    public static WriteCompletionHandler getHandler(AsynchronousSocketChannel socketChannel){
-    	if(handlers.containsKey(socketChannel)){
-    		return handlers.get(socketChannel);
-    	}else{
-    		WriteCompletionHandler handler = new WriteCompletionHandler(socketChannel);
-    		handlers.put(socketChannel, handler);
-    		return handler;
-    	}
-    }
-    
-    private WriteCompletionHandler(AsynchronousSocketChannel socketChannel) {
+    /**
+     * PRIVATE STATICS
+     */
+    private static final Map<AsynchronousSocketChannel, WriteCompletionHandler> handlers = new ConcurrentHashMap<>();
+
+    /**
+     * Queued by {@link #closeWhenWritten()}, the handler closes the channel when it gets to it.
+     */
+    private static final DataToWrite CLOSE_WHEN_WRITTEN = new DataToWrite(ByteBuffer.allocate(0), null, null);
+
+    /********************************
+     ******** PRIVATES **************
+     ********************************/
+    private final AsynchronousSocketChannel socketChannel;
+    private final OutboundLimits limits;
+    private final Queue<DataToWrite> writeQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean writing = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicLong droppedBufferCount = new AtomicLong();
+    private volatile boolean slow = false;
+
+    /**
+     * Owned by whoever holds the writing flag.
+     */
+    private volatile DataToWrite inFlight;
+
+    /**
+     * Create a new handler or return the previously created one based on the socketChannel.
+     *
+     * @param socketChannel
+     * @return the handler of the channel.
+     */
+    public static WriteCompletionHandler getHandler(AsynchronousSocketChannel socketChannel) {
+        return getHandler(socketChannel, OutboundLimits.getDefault());
+    }
+
+    /**
+     * @param socketChannel
+     * @param limits        bound on what may be queued for the client, if the handler is created by this call.
+     * @return the handler of the channel.
+     */
+    public static WriteCompletionHandler getHandler(AsynchronousSocketChannel socketChannel, OutboundLimits limits) {
+        return handlers.computeIfAbsent(socketChannel, channel -> new WriteCompletionHandler(channel, limits));
+    }
+
+    /**
+     * Closes the channel and drops its handler along with everything still queued on it.
+     *
+     * @param socketChannel
+     */
+    public static void removeHandler(AsynchronousSocketChannel socketChannel) {
+        WriteCompletionHandler handler = handlers.remove(socketChannel);
+        if (handler != null) {
+            handler.close();
+        } else {
+            closeChannel(socketChannel);
+        }
+    }
+
+    /**
+     * @return number of channels that have a handler.
+     */
+    public static int handlerCount() {
+        return handlers.size();
+    }
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param socketChannel
+     * @param limits
+     */
+    private WriteCompletionHandler(AsynchronousSocketChannel socketChannel, OutboundLimits limits) {
         this.socketChannel = socketChannel;
+        this.limits = limits;
+    }
+
+    /**
+     * @return bytes queued for the client and not written yet, the write in progress included.
+     */
+    public long queuedByteCount() {
+        return queuedBytes.get();
+    }
+
+    /**
+     * @return number of stale table states dropped because the client fell behind.
+     */
+    public long droppedBufferCount() {
+        return droppedBufferCount.get();
     }
 
     /**
-     *  if there is more data to write initiate that.  
+     * Sends the rest of a partial write, or moves on to the next command.
      */
     @Override
     public void completed(Integer bytesWritten, SessionState attachment) {
-    	writeNext();
+        DataToWrite dataToWrite = inFlight;
+        if (dataToWrite.outputBuffer.hasRemaining() && !closed.get()) {
+            socketChannel.write(dataToWrite.outputBuffer, dataToWrite.sessionState, this);
+            return;
+        }
+        inFlight = null;
+        release(dataToWrite);
+        if (slow && limits.isUnderLowWatermark(queuedBytes.get())) {
+            slow = false;
+        }
+        writing.set(false);
+        writeNext();
     }
 
     /**
-     *  if there is more data to write initiate that.  
+     * The client is gone, nothing queued for it can be delivered any more.
      */
-	@Override
+    @Override
     public void failed(Throwable exc, SessionState attachment) {
-    	writeNext();
-    }
-    
-    private boolean hasDataToWrite() {
-		return !writeQueue.isEmpty();
-	}
-
-	/**
-	 * Add new data to write queue. Then initiate the next write if a write operation is not in progress.
-	 * @param outputBuffer
-	 * @param sessionState
-	 */
+        DataToWrite dataToWrite = inFlight;
+        inFlight = null;
+        if (dataToWrite != null) {
+            release(dataToWrite);
+        }
+        handlers.remove(socketChannel, this);
+        close();
+        // Whatever was queued behind the failed write is released by writeNext now that the handler is closed.
+        writing.set(false);
+        writeNext();
+    }
+
+    /**
+     * Add new data to write queue. Then initiate the next write if a write operation is not in progress.
+     *
+     * @param outputBuffer
+     * @param sessionState
+     */
     public void write(ByteBuffer outputBuffer, SessionState sessionState) {
-		DataToWrite dataToWrite = new DataToWrite(outputBuffer, sessionState);
-		writeQueue.add(dataToWrite);
-		if(!writing){
-			writeNext();
-		}
-	}
-	
-    /**
-     * Get the next data from queue and write it to the socket.
-     */
-	private synchronized void writeNext(){	
-		if(hasDataToWrite()){
-			this.writing = true;
-			DataToWrite dataToWrite = writeQueue.poll();
-			socketChannel.write(dataToWrite.outputBuffer, dataToWrite.sessionState, this);		
-		}else{
-			this.writing = false;
-		}		
-	}
-	
-	/**
-	 * Data structure for keeping the data to write.
-	 */
-	class DataToWrite{
-		ByteBuffer outputBuffer; 
-		SessionState sessionState;
-		public DataToWrite(ByteBuffer outputBuffer, SessionState sessionState){
-			this.outputBuffer = outputBuffer;
-			this.sessionState = sessionState;
-		}
-	}
-}
\ No newline at end of file
+        write(new DataToWrite(outputBuffer, null, sessionState));
+    }
+
+    /**
+     * Add a command shared with other players to the write queue.
+     * A reference to the buffer is held until its view has been written.
+     *
+     * @param shared
+     * @param sessionState
+     */
+    public void write(SharedBuffer shared, SessionState sessionState) {
+        write(new DataToWrite(shared.retain().view(), shared, sessionState));
+    }
+
+    /**
+     * Closes the channel and drops the handler once everything written so far has been sent.
+     */
+    public void closeWhenWritten() {
+        write(CLOSE_WHEN_WRITTEN);
+    }
+
+    /****** PRIVATES ******/
+
+    /**
+     * @param dataToWrite
+     */
+    private void write(DataToWrite dataToWrite) {
+        writeQueue.add(dataToWrite);
+        queuedBytes.addAndGet(dataToWrite.size);
+        if (!isWithinLimits(dataToWrite)) {
+            // A slow client the policy can't keep under the high watermark.
+            removeHandler(socketChannel);
+        }
+        writeNext();
+    }
+
+    /**
+     * Applies the policy for slow clients once the data has been queued.
+     *
+     * @param dataToWrite the data just queued.
+     * @return false if the client has to be disconnected.
+     */
+    private boolean isWithinLimits(DataToWrite dataToWrite) {
+        if (slow && dataToWrite.tableState) {
+            // A slow client only gets the latest table.
+            dropStaleTableStates();
+        }
+        if (!limits.isOverHighWatermark(queuedBytes.get())) {
+            return true;
+        }
+        if (limits.dropsStaleTableStates()) {
+            slow = true;
+            dropStaleTableStates();
+        }
+        return !limits.isOverHighWatermark(queuedBytes.get());
+    }
+
+    /**
+     * Drops every queued table state but the latest. The write in progress has left the queue already.
+     */
+    private void dropStaleTableStates() {
+        DataToWrite latest = null;
+        for (DataToWrite dataToWrite : writeQueue) {
+            if (!dataToWrite.tableState) {
+                continue;
+            }
+            // Whoever takes it off the queue first, the writer or another sender, releases it.
+            if (latest != null && writeQueue.remove(latest)) {
+                droppedBufferCount.incrementAndGet();
+                release(latest);
+            }
+            latest = dataToWrite;
+        }
+    }
+
+    /**
+     * Get the next data from queue and write it to the socket, unless another write is in progress.
+     */
+    private void writeNext() {
+        // Someone may queue right after the flag is dropped, so check the queue again once it is.
+        while (!writeQueue.isEmpty() && writing.compareAndSet(false, true)) {
+            DataToWrite dataToWrite = writeQueue.poll();
+            if (dataToWrite == null) {
+                writing.set(false);
+                continue;
+            }
+            if (dataToWrite == CLOSE_WHEN_WRITTEN) {
+                handlers.remove(socketChannel, this);
+                close();
+            }
+            if (closed.get()) {
+                release(dataToWrite);
+                releaseQueued();
+                writing.set(false);
+                return;
+            }
+            inFlight = dataToWrite;
+            socketChannel.write(dataToWrite.outputBuffer, dataToWrite.sessionState, this);
+            return;
+        }
+    }
+
+    /**
+     * Only the first call has an effect. A write in progress fails once the channel is closed and releases what is
+     * queued behind it.
+     */
+    private void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        closeChannel(socketChannel);
+        releaseQueued();
+    }
+
+    /**
+     *
+     */
+    private void releaseQueued() {
+        DataToWrite dataToWrite;
+        while ((dataToWrite = writeQueue.poll()) != null) {
+            release(dataToWrite);
+        }
+    }
+
+    /**
+     * The data is done with, written or not.
+     *
+     * @param dataToWrite
+     */
+    private void release(DataToWrite dataToWrite) {
+        queuedBytes.addAndGet(-dataToWrite.size);
+        if (dataToWrite.owner != null) {
+            dataToWrite.owner.release();
+        }
+    }
+
+    /**
+     * @param socketChannel
+     */
+    private static void closeChannel(AsynchronousSocketChannel socketChannel) {
+        try {
+            socketChannel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Data structure for keeping the data to write.
+     */
+    private static final class DataToWrite {
+        private final ByteBuffer outputBuffer;
+        private final SharedBuffer owner;
+        private final SessionState sessionState;
+        private final int size;
+        private final boolean tableState;
+
+        private DataToWrite(ByteBuffer outputBuffer, SharedBuffer owner, SessionState sessionState) {
+            this.outputBuffer = outputBuffer;
+            this.owner = owner;
+            this.sessionState = sessionState;
+            this.size = outputBuffer.remaining();
+            this.tableState = owner != null && owner.isTableState();
+        }
+    }
+}
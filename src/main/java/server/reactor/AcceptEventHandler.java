@@ -2,27 +2,39 @@ package server.reactor;
 
 import commands.Command;
 import server.ClientMessageSender;
+import server.GameLoop;
+import server.IdleReaper;
 import server.models.Machiavelli;
 import server.models.Player;
+import server.models.TableRegistry;
 import utils.constants;
 
 import java.io.IOException;
 import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 
 public class AcceptEventHandler implements EventHandler {
-    private final Selector demultiplexer;
-    private Machiavelli machiavelli = Machiavelli.getInstance();
+    private final Reactor[] workers;
+    private final TableRegistry tableRegistry = TableRegistry.getInstance();
 
-    public AcceptEventHandler(Selector demultiplexer) {
-        this.demultiplexer = demultiplexer;
+    /**
+     * CONSTRUCTOR
+     *
+     * @param workers reactors the accepted connections are spread over.
+     */
+    public AcceptEventHandler(Reactor... workers) {
+        this.workers = workers;
     }
 
-    private SelectionKey registerClient(SocketChannel clientSocket) throws IOException {
-        clientSocket.configureBlocking(false);
-        return clientSocket.register(demultiplexer, SelectionKey.OP_READ);
+    /**
+     * All the connections of a table go to the same worker, the tables are dealt round-robin.
+     *
+     * @param machiavelli
+     * @return the worker serving the table.
+     */
+    private Reactor workerFor(Machiavelli machiavelli) {
+        return workers[Math.floorMod(machiavelli.getId(), workers.length)];
     }
 
     @Override
@@ -34,20 +46,46 @@ public class AcceptEventHandler implements EventHandler {
                 return;
             }
 
-            if (machiavelli.isTableFull()) {
-                ClientMessageSender.sendCommand(clientSocket, Command.CommandNames.TABLE_IS_FULL);
-            } else {
-                SelectionKey key = registerClient(clientSocket);
-                Player player = machiavelli.addPlayer();
-                key.attach(player);
-                ClientMessageSender.getInstance().registerPlayer(player, clientSocket);
-                machiavelli.introducePlayer(player, constants.GameMode.REACTIVE);
+            clientSocket.configureBlocking(false);
+            Machiavelli machiavelli = tableRegistry.routeConnection();
 
-                machiavelli.startGame();
-            }
+            // The worker registers the channel on its own thread, seating the player is up to the game loop.
+            ClientSession session = new ClientSession(clientSocket);
+            workerFor(machiavelli).registerClient(clientSocket, SelectionKey.OP_READ, session, key -> {
+                session.setKey(key);
+                session.watchHeartbeat(IdleReaper.getInstance());
+                machiavelli.submit(() -> acceptPlayer(machiavelli, session));
+            }, () -> machiavelli.submit(machiavelli::releaseSeat));
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Runs on the game loop.
+     *
+     * @param machiavelli
+     * @param session
+     */
+    private void acceptPlayer(Machiavelli machiavelli, ClientSession session) {
+        if (machiavelli.isTableFull()) {
+            ClientMessageSender.sendCommand(session, Command.CommandNames.TABLE_IS_FULL);
+            // The reply is written once this task is done, the connection is closed right after.
+            GameLoop.current().runAfterTask(session::close);
+            machiavelli.releaseSeat();
+            return;
+        }
+
+        Player player = machiavelli.addPlayer();
+        if (!session.seatPlayer(player)) {
+            // The client left while the connection waited for the game loop.
+            machiavelli.cancelSeating(player);
+            return;
+        }
+        ClientMessageSender.getInstance().registerPlayer(player, session);
+        machiavelli.introducePlayer(player, constants.GameMode.REACTIVE);
+
+        machiavelli.startGame();
+    }
 }
 
@@ -8,6 +8,11 @@ import server.models.Machiavelli;
 import server.models.Player;
 
 public class ClientCommandProcessor {
+    /**
+     * PRIVATE STATICS
+     */
+    private static final String PONG = Command.CommandNames.PONG.toString();
+
     /**
      * Parses the command string and passes it to the next function.
      *
@@ -15,19 +20,38 @@ public class ClientCommandProcessor {
      * @param player        player who sent the command.
      */
     public static void processCommand(String commandString, Player player) {
+        if (PONG.equals(commandString)) {
+            // Only there to show the client is alive, the read has been counted already.
+            return;
+        }
         Command command = CommandFactory.buildCommand(commandString);
         processCommand(command, player);
     }
 
     /**
-     * Executes the client command.
+     * Queues the client command on the game loop, the calling I/O thread returns right away.
      *
      * @param command the command that client has sent.
      * @param player  player who sent the command.
      */
     public static void processCommand(Command command, Player player) {
+        if (player == null) {
+            // The connection isn't seated yet.
+            return;
+        }
+        Machiavelli machiavelli = player.getGame();
+        machiavelli.submit(() -> executeCommand(command, player, machiavelli));
+    }
+
+    /**
+     * Executes the client command, runs on the game loop.
+     *
+     * @param command     the command that client has sent.
+     * @param player      player who sent the command.
+     * @param machiavelli game of the player.
+     */
+    private static void executeCommand(Command command, Player player, Machiavelli machiavelli) {
         System.out.println("Command received: " + command.serialize());
-        Machiavelli machiavelli = Machiavelli.getInstance();
         switch (command.getName()) {
             case PLAYER_MOVE:
                 machiavelli.processMove((PlayerMove) command);
@@ -1,44 +1,47 @@
 package server.reactor;
 
-import server.models.Machiavelli;
-import server.models.Player;
-
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 
 
+/**
+ * Reads the commands of the clients of one reactor.
+ * The read buffer is shared by all the connections of the reactor: it is emptied into the frame decoder of the
+ * connection after every read.
+ */
 public class ClientEventHandler implements EventHandler {
+    /**
+     * PRIVATE STATICS
+     */
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
 
-    /*******************************************************************
-     **************************PRIVATE STATICS********************************
-     ******************************************************************/
-    private final Machiavelli machiavelli = Machiavelli.getInstance();
-
-    /*******************************************************************
-     **************************PRIVATES********************************
-     ******************************************************************/
-
+    /********************************
+     ******** PRIVATES **************
+     ********************************/
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
 
     @Override
     public void handleEvent(SelectionKey key) throws IOException {
         SocketChannel clientSocket = (SocketChannel) key.channel();
-        Player player = (Player) key.attachment();
+        ClientSession session = (ClientSession) key.attachment();
 
         try {
-            ByteBuffer buffer = ByteBuffer.allocate(256);
-            int readByteCount = clientSocket.read(buffer);
+            int readByteCount = clientSocket.read(readBuffer);
             if (readByteCount == -1) {
                 throw new IOException("Client disconnected!");
             }
-            String cmdString = new String(buffer.array()).trim();
-            buffer.clear();
-
-            ClientCommandProcessor.processCommand(cmdString, player);
+            session.touch();
+            readBuffer.flip();
+            try {
+                // Commands go to the game loop of the player as soon as their EOC arrives.
+                session.getDecoder().decode(readBuffer);
+            } finally {
+                readBuffer.clear();
+            }
         } catch (IOException e) {
-            clientSocket.close();
-            machiavelli.playerLeftTheGame(player);
+            session.close();
             e.printStackTrace();
         }
     }
@@ -0,0 +1,459 @@
+package server.reactor;
+
+import commands.Command;
+import server.ClientConnection;
+import server.ClientMessageSender;
+import server.FrameDecoder;
+import server.GameLoop;
+import server.IdleReaper;
+import server.OutboundLimits;
+import server.SharedBuffer;
+import server.models.Machiavelli;
+import server.models.Player;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * State of one client connection, attached to its selection key.
+ * <p>
+ * The frame decoder lives as long as the connection and keeps the commands that arrive partially between reads.
+ * The session exists from the moment the connection is accepted; the player is set once the game loop seats it.
+ * <p>
+ * Outgoing commands are queued. Commands sent by a game loop task are written together with one gathering write
+ * once the task is done, so the burst of commands a move causes costs one system call instead of one per command;
+ * commands sent from anywhere else are written right away. What the socket doesn't take stays queued, and the
+ * reactor is asked for OP_WRITE to send it when the client catches up, so a slow client never holds up the thread
+ * sending to it. How much may stay queued is bounded by the {@link OutboundLimits} of the session.
+ */
+public class ClientSession implements ClientConnection {
+    /********************************
+     ******** PRIVATES **************
+     ********************************/
+    private final SocketChannel channel;
+    private final OutboundLimits limits;
+    private final FrameDecoder decoder =
+            new FrameDecoder(frame -> ClientCommandProcessor.processCommand(frame, getPlayer()));
+
+    /**
+     * Guarded by this session, filled by the game loop and drained by the reactor.
+     */
+    private final ArrayDeque<PendingWrite> outbound = new ArrayDeque<>();
+    private ByteBuffer[] gatherBuffers = new ByteBuffer[8];
+    private boolean flushScheduled = false;
+    private boolean waitingForWritable = false;
+    private boolean closed = false;
+    private boolean slow = false;
+    private long queuedBytes = 0;
+    private long writeCount = 0;
+    private long sentBufferCount = 0;
+    private long droppedBufferCount = 0;
+
+    /**
+     * Set on the reactor thread before the session is handed to the game loop.
+     */
+    private volatile SelectionKey key;
+
+    /**
+     * Set on the game loop, read on the selector thread.
+     */
+    private volatile Player player;
+
+    /**
+     * Null until the connection is watched.
+     */
+    private volatile IdleReaper.Heartbeat heartbeat;
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param channel
+     */
+    public ClientSession(SocketChannel channel) {
+        this(channel, OutboundLimits.getDefault());
+    }
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param channel
+     * @param limits  bound on what may be queued for the client.
+     */
+    public ClientSession(SocketChannel channel, OutboundLimits limits) {
+        this.channel = channel;
+        this.limits = limits;
+    }
+
+    /***************************************
+     *************** GETTERS **************
+     **************************************/
+
+    /**
+     * @return the seated player, null until the game loop has seated the connection.
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * @return decoder of the commands the client sends.
+     */
+    public FrameDecoder getDecoder() {
+        return decoder;
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    public SelectionKey getKey() {
+        return key;
+    }
+
+    /**
+     * @return number of buffers waiting for the client to catch up.
+     */
+    public synchronized int queuedBufferCount() {
+        return outbound.size();
+    }
+
+    /**
+     * @return bytes waiting for the client to catch up.
+     */
+    @Override
+    public synchronized long queuedByteCount() {
+        return queuedBytes;
+    }
+
+    /**
+     * @return number of stale table states dropped because the client fell behind.
+     */
+    public synchronized long droppedBufferCount() {
+        return droppedBufferCount;
+    }
+
+    /**
+     * @return number of write system calls made for this connection.
+     */
+    public synchronized long writeCount() {
+        return writeCount;
+    }
+
+    /**
+     * @return number of buffers handed to this connection to send.
+     */
+    public synchronized long sentBufferCount() {
+        return sentBufferCount;
+    }
+
+    /***************************************
+     *************** SETTERS **************
+     **************************************/
+
+    /**
+     * Seats the player, unless the connection has been closed already. Once seated, closing the connection lets the
+     * game know the player has left.
+     *
+     * @param player
+     * @return false if the connection is closed, the player isn't seated then.
+     */
+    public synchronized boolean seatPlayer(Player player) {
+        if (closed) {
+            return false;
+        }
+        this.player = player;
+        return true;
+    }
+
+    /**
+     * @param key
+     */
+    public void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Closes the connection once the client has stopped answering for too long.
+     *
+     * @param reaper
+     */
+    public void watchHeartbeat(IdleReaper reaper) {
+        heartbeat = reaper.watch(() -> ClientMessageSender.sendCommand(this, Command.CommandNames.PING), this::close);
+    }
+
+    /**
+     * The client has sent something, runs on the reactor after every read.
+     */
+    public void touch() {
+        IdleReaper.Heartbeat heartbeat = this.heartbeat;
+        if (heartbeat != null) {
+            heartbeat.touch();
+        }
+    }
+
+    /***************************************
+     *************** WRITES ****************
+     **************************************/
+
+    /**
+     * Sends the buffer without blocking. The session owns the buffer from now on.
+     *
+     * @param buffer flipped buffer.
+     */
+    @Override
+    public void send(ByteBuffer buffer) {
+        send(buffer, null);
+    }
+
+    /**
+     * Sends a command shared with other players without blocking.
+     * The session keeps a reference to the buffer until its view has been written.
+     *
+     * @param shared
+     */
+    @Override
+    public void send(SharedBuffer shared) {
+        send(shared.retain().view(), shared);
+    }
+
+    /**
+     * Writes as much of the queue as the socket takes, runs on the reactor when the socket is writable.
+     * Write interest is dropped once the queue is empty.
+     *
+     * @throws IOException
+     */
+    public synchronized void flush() throws IOException {
+        writeOutbound();
+        if (outbound.isEmpty()) {
+            waitingForWritable = false;
+            setWriteInterest(false);
+        }
+    }
+
+    /**
+     * Closes the connection and lets the game know the player has left. Only the first call has an effect.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        IdleReaper.Heartbeat heartbeat = this.heartbeat;
+        if (heartbeat != null) {
+            heartbeat.cancel();
+        }
+        PendingWrite pending;
+        while ((pending = outbound.poll()) != null) {
+            release(pending.owner);
+        }
+        queuedBytes = 0;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        Player player = this.player;
+        if (player != null) {
+            Machiavelli machiavelli = player.getGame();
+            machiavelli.submit(() -> machiavelli.playerLeftTheGame(player));
+        }
+    }
+
+    /****** PRIVATES ******/
+
+    /**
+     * @param buffer flipped buffer.
+     * @param owner  shared buffer the buffer is a view of, released once the view is written. May be null.
+     */
+    private synchronized void send(ByteBuffer buffer, SharedBuffer owner) {
+        if (closed) {
+            release(owner);
+            return;
+        }
+        PendingWrite pending = new PendingWrite(buffer, owner);
+        outbound.add(pending);
+        queuedBytes += pending.size;
+        sentBufferCount++;
+        if (!isWithinLimits(pending)) {
+            // A slow client the policy can't keep under the high watermark.
+            close();
+            return;
+        }
+        if (waitingForWritable) {
+            // The reactor sends the queue once the client catches up.
+            return;
+        }
+
+        GameLoop loop = GameLoop.current();
+        if (loop == null) {
+            writeQueued();
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            loop.runAfterTask(this::flushQueued);
+        }
+    }
+
+    /**
+     * Runs on the game loop once the task that sent the commands is done.
+     */
+    private synchronized void flushQueued() {
+        flushScheduled = false;
+        if (!closed && !waitingForWritable) {
+            writeQueued();
+        }
+    }
+
+    /**
+     * Writes what the socket takes right away and leaves the rest to the reactor.
+     */
+    private void writeQueued() {
+        try {
+            writeOutbound();
+            if (!outbound.isEmpty()) {
+                waitingForWritable = true;
+                setWriteInterest(true);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            close();
+        }
+    }
+
+    /**
+     * Writes the whole queue with one gathering write and drops the buffers that have been sent.
+     *
+     * @throws IOException
+     */
+    private void writeOutbound() throws IOException {
+        int count = outbound.size();
+        if (count == 0) {
+            return;
+        }
+        if (gatherBuffers.length < count) {
+            gatherBuffers = new ByteBuffer[Math.max(count, gatherBuffers.length * 2)];
+        }
+        int i = 0;
+        for (PendingWrite pending : outbound) {
+            gatherBuffers[i++] = pending.buffer;
+        }
+        try {
+            channel.write(gatherBuffers, 0, count);
+            writeCount++;
+        } finally {
+            Arrays.fill(gatherBuffers, 0, count, null);
+        }
+
+        boolean sent = false;
+        PendingWrite head;
+        while ((head = outbound.peek()) != null && !head.buffer.hasRemaining()) {
+            outbound.poll();
+            queuedBytes -= head.size;
+            release(head.owner);
+            sent = true;
+        }
+        // Dropping stale tables doesn't count, the client has to be taking commands again.
+        if (sent && slow && limits.isUnderLowWatermark(queuedBytes)) {
+            slow = false;
+        }
+    }
+
+    /**
+     * Applies the policy for slow clients once the buffer has been queued.
+     *
+     * @param pending the buffer just queued.
+     * @return false if the client has to be disconnected.
+     */
+    private boolean isWithinLimits(PendingWrite pending) {
+        if (slow && pending.tableState) {
+            // A slow client only gets the latest table.
+            dropStaleTableStates();
+        }
+        if (!limits.isOverHighWatermark(queuedBytes)) {
+            return true;
+        }
+        if (limits.dropsStaleTableStates()) {
+            slow = true;
+            dropStaleTableStates();
+        }
+        return !limits.isOverHighWatermark(queuedBytes);
+    }
+
+    /**
+     * Drops every queued table state but the latest, leaving alone the one being written.
+     */
+    private void dropStaleTableStates() {
+        boolean latestSeen = false;
+        Iterator<PendingWrite> iterator = outbound.descendingIterator();
+        while (iterator.hasNext()) {
+            PendingWrite pending = iterator.next();
+            if (!pending.tableState) {
+                continue;
+            }
+            if (!latestSeen) {
+                latestSeen = true;
+            } else if (pending.buffer.position() == 0) {
+                iterator.remove();
+                queuedBytes -= pending.size;
+                droppedBufferCount++;
+                release(pending.owner);
+            }
+        }
+    }
+
+    /**
+     * @param owner may be null.
+     */
+    private static void release(SharedBuffer owner) {
+        if (owner != null) {
+            owner.release();
+        }
+    }
+
+    /**
+     * Interest ops can be changed from any thread, the selector is woken up to pick the change up.
+     *
+     * @param enabled
+     */
+    private void setWriteInterest(boolean enabled) {
+        SelectionKey key = this.key;
+        if (key == null) {
+            return;
+        }
+        try {
+            int ops = key.interestOps();
+            int newOps = enabled ? ops | SelectionKey.OP_WRITE : ops & ~SelectionKey.OP_WRITE;
+            if (newOps != ops) {
+                key.interestOps(newOps);
+                if (enabled) {
+                    key.selector().wakeup();
+                }
+            }
+        } catch (CancelledKeyException e) {
+            // The connection is being closed.
+        }
+    }
+
+    /**
+     * A buffer waiting for the client to catch up.
+     */
+    private static final class PendingWrite {
+        private final ByteBuffer buffer;
+        private final SharedBuffer owner;
+        private final int size;
+        private final boolean tableState;
+
+        private PendingWrite(ByteBuffer buffer, SharedBuffer owner) {
+            this.buffer = buffer;
+            this.owner = owner;
+            this.size = buffer.remaining();
+            this.tableState = owner != null && owner.isTableState();
+        }
+    }
+}
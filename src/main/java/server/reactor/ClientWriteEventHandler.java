@@ -0,0 +1,21 @@
+package server.reactor;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+
+/**
+ * Sends the commands queued for a client once its socket is writable again.
+ */
+public class ClientWriteEventHandler implements EventHandler<ClientSession> {
+
+    @Override
+    public void handleEvent(SelectionKey key) {
+        ClientSession session = (ClientSession) key.attachment();
+        try {
+            session.flush();
+        } catch (IOException e) {
+            session.close();
+            e.printStackTrace();
+        }
+    }
+}
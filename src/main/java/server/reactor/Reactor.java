@@ -8,12 +8,23 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
 
+/**
+ * Event loop around one selector.
+ * <p>
+ * The server runs one boss reactor that accepts connections and several worker reactors that serve them.
+ * A selector may only be touched by its own thread without blocking, so other threads hand channels to a
+ * reactor through {@link #registerClient}, which queues the registration and wakes the selector up.
+ */
 public class Reactor implements ServerModeRunner {
     private Map<Integer, EventHandler> registeredHandlers = new ConcurrentHashMap<Integer, EventHandler>();
     private Selector demultiplexer;
+    private final Queue<Runnable> pendingRegistrations = new ConcurrentLinkedQueue<>();
 
     public Reactor() throws IOException {
         demultiplexer = Selector.open();
@@ -31,36 +42,99 @@ public class Reactor implements ServerModeRunner {
         channel.register(demultiplexer, eventType);
     }
 
+    /**
+     * Registers the channel with this reactor, from any thread.
+     * The registration is done by the reactor thread, which then calls back with the new key.
+     *
+     * @param channel      non-blocking channel.
+     * @param eventType    interest set of the channel.
+     * @param attachment   attached to the key.
+     * @param onRegistered called on the reactor thread once the channel is registered.
+     */
+    public void registerClient(SelectableChannel channel, int eventType, Object attachment,
+                               Consumer<SelectionKey> onRegistered) {
+        registerClient(channel, eventType, attachment, onRegistered, () -> {
+        });
+    }
+
+    /**
+     * @param channel      non-blocking channel.
+     * @param eventType    interest set of the channel.
+     * @param attachment   attached to the key.
+     * @param onRegistered called on the reactor thread once the channel is registered.
+     * @param onFailed     called on the reactor thread instead if the channel couldn't be registered, it is closed.
+     */
+    public void registerClient(SelectableChannel channel, int eventType, Object attachment,
+                               Consumer<SelectionKey> onRegistered, Runnable onFailed) {
+        pendingRegistrations.add(() -> {
+            SelectionKey key;
+            try {
+                key = channel.register(demultiplexer, eventType, attachment);
+            } catch (IOException e) {
+                // The client is already gone.
+                e.printStackTrace();
+                try {
+                    channel.close();
+                } catch (IOException closeFailure) {
+                    closeFailure.printStackTrace();
+                }
+                onFailed.run();
+                return;
+            }
+            onRegistered.accept(key);
+        });
+        demultiplexer.wakeup();
+    }
+
     public void run() {
         try {
             while (true) { // Loop indefinitely
                 demultiplexer.select();
+                registerPendingChannels();
+
                 Set<SelectionKey> readyHandles = demultiplexer.selectedKeys();
                 Iterator<SelectionKey> handleIterator = readyHandles.iterator();
 
                 while (handleIterator.hasNext()) {
                     SelectionKey handle = handleIterator.next();
-
-                    EventHandler handler = null;
-                    if (handle.isAcceptable()) {
-                        handler = registeredHandlers.get(SelectionKey.OP_ACCEPT);
-                    }
-
-                    if (handle.isReadable()) {
-                        handler = registeredHandlers.get(SelectionKey.OP_READ);
-                    }
-
-                    if (handle.isWritable()) {
-                        handler = registeredHandlers.get(SelectionKey.OP_WRITE);
-                    }
-                    if (handler != null) {
-                        handler.handleEvent(handle);
-                    }
                     handleIterator.remove();
+
+                    // A key can be ready for several operations at once, each of them gets its handler.
+                    dispatch(handle, SelectionKey.OP_ACCEPT);
+                    dispatch(handle, SelectionKey.OP_READ);
+                    dispatch(handle, SelectionKey.OP_WRITE);
                 }
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    /****** PRIVATES ******/
+
+    /**
+     * @param handle
+     * @param eventType
+     * @throws IOException
+     */
+    private void dispatch(SelectionKey handle, int eventType) throws IOException {
+        // An earlier handler may have closed the channel.
+        if (!handle.isValid() || (handle.readyOps() & eventType) == 0) {
+            return;
+        }
+        EventHandler handler = registeredHandlers.get(eventType);
+        if (handler != null) {
+            handler.handleEvent(handle);
+        }
+    }
+
+    /**
+     *
+     */
+    private void registerPendingChannels() {
+        Runnable registration;
+        while ((registration = pendingRegistrations.poll()) != null) {
+            registration.run();
+        }
+    }
+}
@@ -2,27 +2,66 @@ package server.reactor;
 
 import server.ServerModeInitiator;
 import server.ServerModeRunner;
+import utils.constants;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 
+/**
+ * Sets up the reactive mode: a boss reactor accepting connections on the server thread,
+ * and a pool of worker reactors, each on its own thread, reading from the clients.
+ */
 public class ReactorInitiator implements ServerModeInitiator {
     private ServerSocketChannel serverSocket;
+    private final int workerCount;
 
+    /**
+     * CONSTRUCTOR
+     * Starts one worker reactor per core.
+     *
+     * @param address
+     * @throws IOException
+     */
     public ReactorInitiator(InetSocketAddress address) throws IOException {
+        this(address, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param address
+     * @param workerCount number of worker reactors.
+     * @throws IOException
+     */
+    public ReactorInitiator(InetSocketAddress address, int workerCount) throws IOException {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("There must be at least one worker reactor");
+        }
+        this.workerCount = workerCount;
         serverSocket = ServerSocketChannel.open();
-        serverSocket.bind(address);
+        serverSocket.bind(address, constants.ACCEPT_BACKLOG);
         serverSocket.configureBlocking(false);
     }
 
     @Override
     public ServerModeRunner initiateMode() throws Exception {
-        Reactor reactor = new Reactor();
-        reactor.registerChannel(SelectionKey.OP_ACCEPT, serverSocket);
-        reactor.registerEventHandler(SelectionKey.OP_ACCEPT, new AcceptEventHandler(reactor.getDemultiplexer()));
-        reactor.registerEventHandler(SelectionKey.OP_READ, new ClientEventHandler());
-        return reactor;
+        Reactor[] workers = new Reactor[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Reactor();
+            // Each worker gets its own handler and read buffer.
+            workers[i].registerEventHandler(SelectionKey.OP_READ, new ClientEventHandler());
+            workers[i].registerEventHandler(SelectionKey.OP_WRITE, new ClientWriteEventHandler());
+
+            Thread workerThread = new Thread(workers[i]::run, "reactor-worker-" + i);
+            workerThread.setDaemon(true);
+            workerThread.start();
+        }
+
+        Reactor boss = new Reactor();
+        boss.registerChannel(SelectionKey.OP_ACCEPT, serverSocket);
+        boss.registerEventHandler(SelectionKey.OP_ACCEPT, new AcceptEventHandler(workers));
+        return boss;
     }
 }
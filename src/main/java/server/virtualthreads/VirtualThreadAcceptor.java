@@ -0,0 +1,78 @@
+package server.virtualthreads;
+
+import commands.Command;
+import server.ClientMessageSender;
+import server.IdleReaper;
+import server.ServerModeRunner;
+import server.models.Machiavelli;
+import server.models.Player;
+import server.models.TableRegistry;
+import utils.constants;
+
+import java.io.IOException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Accepts the connections of the virtual thread mode and hands each of them a session of its own.
+ */
+public class VirtualThreadAcceptor implements ServerModeRunner {
+    private final ServerSocketChannel serverSocket;
+    private final ThreadFactory threadFactory;
+    private final TableRegistry tableRegistry = TableRegistry.getInstance();
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param serverSocket  blocking server socket.
+     * @param threadFactory makes the threads of the connections.
+     */
+    public VirtualThreadAcceptor(ServerSocketChannel serverSocket, ThreadFactory threadFactory) {
+        this.serverSocket = serverSocket;
+        this.threadFactory = threadFactory;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) { // Loop indefinitely
+                SocketChannel clientSocket = serverSocket.accept();
+                Machiavelli machiavelli = tableRegistry.routeConnection();
+
+                VirtualThreadSession session = new VirtualThreadSession(clientSocket, threadFactory);
+                session.start();
+                session.watchHeartbeat(IdleReaper.getInstance());
+                machiavelli.submit(() -> acceptPlayer(machiavelli, session));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Runs on the game loop.
+     *
+     * @param machiavelli
+     * @param session
+     */
+    private void acceptPlayer(Machiavelli machiavelli, VirtualThreadSession session) {
+        if (machiavelli.isTableFull()) {
+            ClientMessageSender.sendCommand(session, Command.CommandNames.TABLE_IS_FULL);
+            session.closeWhenSent();
+            machiavelli.releaseSeat();
+            return;
+        }
+
+        Player player = machiavelli.addPlayer();
+        if (!session.seatPlayer(player)) {
+            // The client left while the connection waited for the game loop.
+            machiavelli.cancelSeating(player);
+            return;
+        }
+        ClientMessageSender.getInstance().registerPlayer(player, session);
+        machiavelli.introducePlayer(player, constants.GameMode.VIRTUAL_THREADS);
+
+        machiavelli.startGame();
+    }
+}
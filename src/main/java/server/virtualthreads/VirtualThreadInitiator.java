@@ -0,0 +1,35 @@
+package server.virtualthreads;
+
+import server.ServerModeInitiator;
+import server.ServerModeRunner;
+import utils.constants;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Sets up the virtual thread mode: plain blocking sockets, with a virtual thread reading and another one writing
+ * for every connection. The server thread blocks on accept.
+ */
+public class VirtualThreadInitiator implements ServerModeInitiator {
+    private ServerSocketChannel serverSocket;
+
+    public VirtualThreadInitiator(InetSocketAddress address) throws IOException {
+        serverSocket = ServerSocketChannel.open();
+        serverSocket.bind(address, constants.ACCEPT_BACKLOG);
+    }
+
+    @Override
+    public ServerModeRunner initiateMode() throws Exception {
+        return new VirtualThreadAcceptor(serverSocket, newThreadFactory());
+    }
+
+    /**
+     * @return factory of the connection threads.
+     */
+    static ThreadFactory newThreadFactory() {
+        return Thread.ofVirtual().name("virtual-connection-", 0).factory();
+    }
+}
@@ -0,0 +1,405 @@
+package server.virtualthreads;
+
+import commands.Command;
+import server.BufferPool;
+import server.ClientConnection;
+import server.ClientMessageSender;
+import server.FrameDecoder;
+import server.IdleReaper;
+import server.OutboundLimits;
+import server.SharedBuffer;
+import server.models.Machiavelli;
+import server.models.Player;
+import server.reactor.ClientCommandProcessor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One client connection of the virtual thread mode.
+ * <p>
+ * A reader thread blocks on the socket and passes the decoded commands on to the game loop. A writer thread
+ * blocks on the outbound queue and writes everything queued since its last write with one gathering write.
+ * Sending only enqueues, so a slow client only ever blocks its own writer thread. How much may stay queued is
+ * bounded by the {@link OutboundLimits} of the session.
+ */
+public class VirtualThreadSession implements ClientConnection {
+    /**
+     * PRIVATE STATICS
+     */
+    private static final int MAX_BUFFERS_PER_WRITE = 64;
+
+    /**
+     * Queued by {@link #closeWhenSent()}, the writer closes the connection when it gets to it.
+     */
+    private static final PendingWrite CLOSE_WHEN_SENT = new PendingWrite(ByteBuffer.allocate(0), null);
+
+    /********************************
+     ******** PRIVATES **************
+     ********************************/
+    private final SocketChannel channel;
+    private final ThreadFactory threadFactory;
+    private final OutboundLimits limits;
+    private final FrameDecoder decoder =
+            new FrameDecoder(frame -> ClientCommandProcessor.processCommand(frame, getPlayer()));
+    private final BlockingQueue<PendingWrite> outbound = new LinkedBlockingQueue<>();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final AtomicLong writeCount = new AtomicLong();
+    private final AtomicLong sentBufferCount = new AtomicLong();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicLong droppedBufferCount = new AtomicLong();
+    private volatile boolean slow = false;
+    private Thread writerThread;
+
+    /**
+     * Set on the game loop, read on the reader thread.
+     */
+    private volatile Player player;
+
+    /**
+     * Null until the connection is watched.
+     */
+    private volatile IdleReaper.Heartbeat heartbeat;
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param channel       blocking channel.
+     * @param threadFactory makes the reader and the writer thread.
+     */
+    public VirtualThreadSession(SocketChannel channel, ThreadFactory threadFactory) {
+        this(channel, threadFactory, OutboundLimits.getDefault());
+    }
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param channel       blocking channel.
+     * @param threadFactory makes the reader and the writer thread.
+     * @param limits        bound on what may be queued for the client.
+     */
+    public VirtualThreadSession(SocketChannel channel, ThreadFactory threadFactory, OutboundLimits limits) {
+        this.channel = channel;
+        this.threadFactory = threadFactory;
+        this.limits = limits;
+    }
+
+    /**
+     * Starts the reader and the writer thread.
+     */
+    public void start() {
+        writerThread = threadFactory.newThread(this::writeLoop);
+        writerThread.start();
+        threadFactory.newThread(this::readLoop).start();
+    }
+
+    /**
+     * Closes the connection once the client has stopped answering for too long.
+     *
+     * @param reaper
+     */
+    public void watchHeartbeat(IdleReaper reaper) {
+        heartbeat = reaper.watch(() -> ClientMessageSender.sendCommand(this, Command.CommandNames.PING), this::close);
+    }
+
+    /***************************************
+     *************** GETTERS **************
+     **************************************/
+
+    /**
+     * @return the seated player, null until the game loop has seated the connection.
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * @return bytes queued for the client and not written yet, the batch being written included.
+     */
+    @Override
+    public long queuedByteCount() {
+        return queuedBytes.get();
+    }
+
+    /**
+     * @return number of stale table states dropped because the client fell behind.
+     */
+    public long droppedBufferCount() {
+        return droppedBufferCount.get();
+    }
+
+    /**
+     * @return number of write system calls made for this connection.
+     */
+    public long writeCount() {
+        return writeCount.get();
+    }
+
+    /**
+     * @return number of buffers handed to this connection to send.
+     */
+    public long sentBufferCount() {
+        return sentBufferCount.get();
+    }
+
+    /***************************************
+     *************** SETTERS **************
+     **************************************/
+
+    /**
+     * Seats the player, unless the connection has been closed already. Once seated, closing the connection lets the
+     * game know the player has left.
+     *
+     * @param player
+     * @return false if the connection is closed, the player isn't seated then.
+     */
+    public synchronized boolean seatPlayer(Player player) {
+        if (closed.get()) {
+            return false;
+        }
+        this.player = player;
+        return true;
+    }
+
+    /***************************************
+     *************** WRITES ****************
+     **************************************/
+
+    @Override
+    public void send(ByteBuffer buffer) {
+        enqueue(new PendingWrite(buffer, null));
+    }
+
+    @Override
+    public void send(SharedBuffer shared) {
+        enqueue(new PendingWrite(shared.retain().view(), shared));
+    }
+
+    /**
+     * Closes the connection once everything sent so far has been written.
+     */
+    public void closeWhenSent() {
+        enqueue(CLOSE_WHEN_SENT);
+    }
+
+    /**
+     * Closes the connection and lets the game know the player has left. Only the first call has an effect.
+     */
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (writerThread != null) {
+            writerThread.interrupt();
+        }
+        IdleReaper.Heartbeat heartbeat = this.heartbeat;
+        if (heartbeat != null) {
+            heartbeat.cancel();
+        }
+        releaseQueued();
+
+        // Either seatPlayer sees the connection closed, or the player it seated is seen here.
+        Player player;
+        synchronized (this) {
+            player = this.player;
+        }
+        if (player != null) {
+            Machiavelli machiavelli = player.getGame();
+            machiavelli.submit(() -> machiavelli.playerLeftTheGame(player));
+        }
+    }
+
+    /****** PRIVATES ******/
+
+    /**
+     * @param pending
+     */
+    private void enqueue(PendingWrite pending) {
+        if (pending != CLOSE_WHEN_SENT) {
+            sentBufferCount.incrementAndGet();
+        }
+        outbound.add(pending);
+        queuedBytes.addAndGet(pending.size);
+        if (!isWithinLimits(pending)) {
+            // A slow client the policy can't keep under the high watermark.
+            close();
+        }
+        // The writer may have drained the queue for the last time in between.
+        if (closed.get()) {
+            releaseQueued();
+        }
+    }
+
+    /**
+     * Applies the policy for slow clients once the buffer has been queued.
+     *
+     * @param pending the buffer just queued.
+     * @return false if the client has to be disconnected.
+     */
+    private boolean isWithinLimits(PendingWrite pending) {
+        if (slow && pending.tableState) {
+            // A slow client only gets the latest table.
+            dropStaleTableStates();
+        }
+        if (!limits.isOverHighWatermark(queuedBytes.get())) {
+            return true;
+        }
+        if (limits.dropsStaleTableStates()) {
+            slow = true;
+            dropStaleTableStates();
+        }
+        return !limits.isOverHighWatermark(queuedBytes.get());
+    }
+
+    /**
+     * Drops every queued table state but the latest. The batch being written has left the queue already.
+     */
+    private void dropStaleTableStates() {
+        PendingWrite latest = null;
+        for (PendingWrite pending : outbound) {
+            if (!pending.tableState) {
+                continue;
+            }
+            // Whoever takes it off the queue first, the writer or another sender, releases it.
+            if (latest != null && outbound.remove(latest)) {
+                droppedBufferCount.incrementAndGet();
+                release(latest);
+            }
+            latest = pending;
+        }
+    }
+
+    /**
+     * Body of the reader thread.
+     */
+    private void readLoop() {
+        ByteBuffer readBuffer = BufferPool.getInstance().acquire(BufferPool.BUFFER_SIZE);
+        try {
+            while (channel.read(readBuffer) != -1) {
+                IdleReaper.Heartbeat heartbeat = this.heartbeat;
+                if (heartbeat != null) {
+                    heartbeat.touch();
+                }
+                readBuffer.flip();
+                // Commands go to the game loop of the player as soon as their EOC arrives.
+                decoder.decode(readBuffer);
+                readBuffer.clear();
+            }
+        } catch (IOException e) {
+            if (!closed.get()) {
+                e.printStackTrace();
+            }
+        } finally {
+            BufferPool.getInstance().release(readBuffer);
+        }
+        close();
+    }
+
+    /**
+     * Body of the writer thread.
+     */
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>(MAX_BUFFERS_PER_WRITE);
+        ByteBuffer[] buffers = new ByteBuffer[MAX_BUFFERS_PER_WRITE];
+        try {
+            while (!closed.get()) {
+                batch.add(outbound.take());
+                outbound.drainTo(batch, MAX_BUFFERS_PER_WRITE - 1);
+                boolean closeRequested = batch.remove(CLOSE_WHEN_SENT);
+                for (int i = 0; i < batch.size(); i++) {
+                    buffers[i] = batch.get(i).buffer;
+                }
+                try {
+                    if (!batch.isEmpty()) {
+                        write(buffers, batch.size());
+                    }
+                } finally {
+                    for (int i = 0; i < batch.size(); i++) {
+                        buffers[i] = null;
+                        release(batch.get(i));
+                    }
+                    batch.clear();
+                }
+                if (closeRequested) {
+                    break;
+                }
+                if (slow && limits.isUnderLowWatermark(queuedBytes.get())) {
+                    slow = false;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed while waiting for something to send.
+        } catch (IOException e) {
+            if (!closed.get()) {
+                e.printStackTrace();
+            }
+        }
+        close();
+    }
+
+    /**
+     * Blocks until all the buffers have been written.
+     *
+     * @param buffers
+     * @param count
+     * @throws IOException
+     */
+    private void write(ByteBuffer[] buffers, int count) throws IOException {
+        while (buffers[count - 1].hasRemaining()) {
+            channel.write(buffers, 0, count);
+            writeCount.incrementAndGet();
+        }
+    }
+
+    /**
+     *
+     */
+    private void releaseQueued() {
+        PendingWrite pending;
+        while ((pending = outbound.poll()) != null) {
+            release(pending);
+        }
+    }
+
+    /**
+     * The buffer is done with, written or not.
+     *
+     * @param pending
+     */
+    private void release(PendingWrite pending) {
+        queuedBytes.addAndGet(-pending.size);
+        if (pending.owner != null) {
+            pending.owner.release();
+        }
+    }
+
+    /**
+     * A buffer waiting for the writer thread.
+     */
+    private static final class PendingWrite {
+        private final ByteBuffer buffer;
+        private final SharedBuffer owner;
+        private final int size;
+        private final boolean tableState;
+
+        private PendingWrite(ByteBuffer buffer, SharedBuffer owner) {
+            this.buffer = buffer;
+            this.owner = owner;
+            this.size = buffer.remaining();
+            this.tableState = owner != null && owner.isTableState();
+        }
+    }
+}
@@ -23,8 +23,22 @@ public class constants {
 
     public static final int MINIMUM_SET_SIZE = 3;
 
+    //Server Constants
+
+    // Time a player has to play in reactive mode before the turn is passed for him.
+    public static final long TURN_TIMEOUT_MILLIS = 60000;
+
+    // A client that sends nothing for an interval is pinged, and dropped once it misses this many heartbeats in a row.
+    public static final long HEARTBEAT_INTERVAL_MILLIS = 2000;
+    public static final int MAX_MISSED_HEARTBEATS = 3;
+
+    // Connections waiting to be accepted; the default of 50 drops connections when many clients arrive at once.
+    public static final int ACCEPT_BACKLOG = 1024;
+
     public enum GameMode {
         REACTIVE,
-        PROACTIVE
+        PROACTIVE,
+        // Turn based like REACTIVE, served by blocking sockets on virtual threads.
+        VIRTUAL_THREADS
     }
 }
@@ -0,0 +1,41 @@
+package commands.client;
+
+import org.junit.Test;
+import server.models.CardSet;
+import server.models.Deck;
+import server.models.PackedCardSet;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DealHandsTest {
+
+    @Test
+    public void encodeMatchesSerialize() {
+        final Deck DECK = new Deck(11);
+        final int HAND_SIZE = 15;
+
+        for (int seatNumber = 1; seatNumber <= 7; seatNumber++) {
+            final PackedCardSet HAND = DECK.drawHand(HAND_SIZE);
+            final ByteBuffer BUFFER = ByteBuffer.allocate(DealHands.maxEncodedSize(HAND_SIZE));
+
+            DealHands.encode(BUFFER, seatNumber, HAND, 1000 + seatNumber);
+            BUFFER.flip();
+
+            final String EXPECTED = new DealHands(seatNumber, new CardSet(HAND), 1000 + seatNumber).serialize();
+            assertEquals(EXPECTED, StandardCharsets.US_ASCII.decode(BUFFER).toString());
+        }
+    }
+
+    @Test
+    public void maxEncodedSizeFitsJokers() {
+        final PackedCardSet HAND = new PackedCardSet(new CardSet("joker,joker,10s,10s,10h,10h,10d,10d,10c,10c"));
+        final ByteBuffer BUFFER = ByteBuffer.allocate(DealHands.maxEncodedSize(HAND.totalCount()));
+
+        DealHands.encode(BUFFER, Integer.MAX_VALUE, HAND, Integer.MIN_VALUE);
+        assertTrue(BUFFER.position() <= BUFFER.capacity());
+    }
+}
@@ -0,0 +1,102 @@
+package server;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BufferPoolTest {
+
+    @Test
+    public void requestsGetTheSmallestSizeClassTheyFitIn() {
+        final BufferPool POOL = new BufferPool(4, false);
+
+        assertEquals(256, POOL.acquire(0).capacity());
+        assertEquals(256, POOL.acquire(256).capacity());
+        assertEquals(1024, POOL.acquire(257).capacity());
+        assertEquals(BufferPool.BUFFER_SIZE, POOL.acquire(BufferPool.BUFFER_SIZE).capacity());
+        assertEquals(BufferPool.MAX_POOLED_SIZE, POOL.acquire(BufferPool.MAX_POOLED_SIZE).capacity());
+        assertEquals(4, POOL.slabCount());
+        assertEquals(5, POOL.inUseBufferCount());
+        assertEquals(2 * 256 + 1024 + BufferPool.BUFFER_SIZE + BufferPool.MAX_POOLED_SIZE, POOL.inUseBytes());
+
+        final ByteBuffer LARGE = POOL.acquire(BufferPool.MAX_POOLED_SIZE + 1);
+        assertFalse(LARGE.isDirect());
+        assertEquals(1, POOL.unpooledAllocationCount());
+    }
+
+    @Test
+    public void buffersAreCarvedOutOfSlabs() {
+        final BufferPool POOL = new BufferPool(1, false);
+        final int BUFFERS_PER_SLAB = BufferPool.SLAB_SIZE / BufferPool.BUFFER_SIZE;
+
+        final ByteBuffer FIRST = POOL.acquire(BufferPool.BUFFER_SIZE);
+        assertTrue(FIRST.isDirect());
+        assertEquals(1, POOL.slabCount());
+        assertEquals(BufferPool.SLAB_SIZE, POOL.slabBytes());
+        assertEquals(BUFFERS_PER_SLAB - 1, POOL.freeBufferCount());
+
+        for (int i = 1; i < BUFFERS_PER_SLAB; i++) {
+            assertTrue(POOL.acquire(BufferPool.BUFFER_SIZE).isDirect());
+        }
+        // The only slab is used up.
+        assertFalse(POOL.acquire(BufferPool.BUFFER_SIZE).isDirect());
+        assertFalse(POOL.acquire(16).isDirect());
+        assertEquals(2, POOL.unpooledAllocationCount());
+
+        POOL.release(FIRST);
+        assertSame(FIRST, POOL.acquire(16 + BufferPool.BUFFER_SIZE / 2));
+        assertEquals(BUFFERS_PER_SLAB, POOL.inUseBufferCount());
+    }
+
+    @Test
+    public void releasedBuffersComeBackEmpty() {
+        final BufferPool POOL = new BufferPool(1, false);
+        final ByteBuffer BUFFER = POOL.acquire(100);
+        BUFFER.put(new byte[100]).flip();
+        POOL.release(BUFFER);
+
+        final ByteBuffer REUSED = POOL.acquire(100);
+        assertSame(BUFFER, REUSED);
+        assertEquals(0, REUSED.position());
+        assertEquals(256, REUSED.limit());
+    }
+
+    @Test
+    public void leakDetectionReportsWhereUnreleasedBuffersWereAcquired() {
+        final BufferPool POOL = new BufferPool(1, true);
+        final ByteBuffer RELEASED = POOL.acquire(100);
+        POOL.acquire(100);
+        POOL.release(RELEASED);
+
+        try {
+            POOL.checkForLeaks();
+            fail("The second buffer was never released");
+        } catch (IllegalStateException e) {
+            assertEquals("1 buffers were never released", e.getMessage());
+            assertEquals("Buffer acquired here", e.getCause().getMessage());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void leakDetectionCatchesDoubleReleases() {
+        final BufferPool POOL = new BufferPool(1, true);
+        final ByteBuffer BUFFER = POOL.acquire(100);
+        POOL.release(BUFFER);
+        POOL.release(BUFFER);
+    }
+
+    @Test
+    public void foreignBuffersAreIgnored() {
+        final BufferPool POOL = new BufferPool(1, true);
+        POOL.release(ByteBuffer.allocate(256));
+        POOL.release(ByteBuffer.allocateDirect(300));
+        assertEquals(0, POOL.freeBufferCount());
+        POOL.checkForLeaks();
+    }
+}
@@ -0,0 +1,84 @@
+package server;
+
+import org.junit.Test;
+import server.models.Deck;
+import server.models.PackedCardSet;
+import server.models.cards.Card;
+import server.models.cards.CardRegistry;
+
+import java.util.EmptyStackException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DeckTest {
+
+    @Test
+    public void testConstructor() {
+        final Deck DECK = new Deck(7);
+
+        assertEquals(Deck.SIZE, DECK.size());
+
+        final int[] COPIES = new int[CardRegistry.CODE_COUNT];
+        while (!DECK.isEmpty()) {
+            COPIES[DECK.drawCode()]++;
+        }
+        for (int code = 0; code < CardRegistry.CODE_COUNT; code++) {
+            assertEquals("copies of " + CardRegistry.get(code), PackedCardSet.MAX_COPIES, COPIES[code]);
+        }
+    }
+
+    @Test
+    public void sameSeedDealsSameCards() {
+        final Deck FIRST = new Deck(123456789L);
+        final Deck SECOND = new Deck(123456789L);
+
+        assertEquals(FIRST.getCards(), SECOND.getCards());
+
+        FIRST.reset();
+        SECOND.reset();
+        while (!FIRST.isEmpty()) {
+            assertEquals(FIRST.drawCode(), SECOND.drawCode());
+        }
+    }
+
+    @Test
+    public void differentSeedsShuffleDifferently() {
+        assertNotEquals(new Deck(1).getCards(), new Deck(2).getCards());
+    }
+
+    @Test
+    public void draw() {
+        final Deck DECK = new Deck(3);
+        final int TOP_CODE = CardRegistry.codeOf(DECK.getCards().get(0));
+
+        assertSame(CardRegistry.get(TOP_CODE), DECK.draw());
+        assertEquals(Deck.SIZE - 1, DECK.size());
+    }
+
+    @Test
+    public void drawHand() {
+        final Deck DECK = new Deck(5);
+        final List<Card> TOP_CARDS = DECK.getCards().subList(0, 15);
+
+        final PackedCardSet HAND = DECK.drawHand(15);
+
+        assertEquals(new PackedCardSet(TOP_CARDS), HAND);
+        assertEquals(Deck.SIZE - 15, DECK.size());
+    }
+
+    @Test(expected = EmptyStackException.class)
+    public void drawHandFromShortDeck() {
+        final Deck DECK = new Deck(5);
+        DECK.drawHand(Deck.SIZE - 1);
+        DECK.drawHand(2);
+    }
+
+    @Test(expected = EmptyStackException.class)
+    public void drawFromEmptyDeck() {
+        final Deck DECK = new Deck(3);
+        for (int i = 0; i <= Deck.SIZE; i++) {
+            DECK.draw();
+        }
+    }
+}
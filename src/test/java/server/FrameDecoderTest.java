@@ -0,0 +1,79 @@
+package server;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class FrameDecoderTest {
+
+    private final List<String> frames = new ArrayList<>();
+    private final FrameDecoder decoder = new FrameDecoder(64, frames::add);
+
+    private void decode(String... reads) throws IOException {
+        for (String read : reads) {
+            decoder.decode(ByteBuffer.wrap(read.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    public void singleFrame() throws IOException {
+        decode("PLAYER_LOGIN&bob|");
+
+        assertEquals(Arrays.asList("PLAYER_LOGIN&bob|"), frames);
+        assertEquals(0, decoder.pendingByteCount());
+    }
+
+    @Test
+    public void frameSplitAcrossReads() throws IOException {
+        decode("PLAYER_", "LOGIN&b");
+        assertEquals(0, frames.size());
+        assertEquals(14, decoder.pendingByteCount());
+
+        decode("ob|");
+        assertEquals(Arrays.asList("PLAYER_LOGIN&bob|"), frames);
+    }
+
+    @Test
+    public void severalFramesInOneRead() throws IOException {
+        decode("CMD1|CMD2|CM", "D3|");
+
+        assertEquals(Arrays.asList("CMD1|", "CMD2|", "CMD3|"), frames);
+    }
+
+    @Test
+    public void whitespaceIsTrimmed() throws IOException {
+        decode("CMD1|\n", "  CMD2 \r\n|", " \n|");
+
+        assertEquals(Arrays.asList("CMD1|", "CMD2|"), frames);
+    }
+
+    @Test
+    public void frameGrowsUpToTheMaxSize() throws IOException {
+        final char[] PAYLOAD = new char[63];
+        Arrays.fill(PAYLOAD, 'x');
+        decode(new String(PAYLOAD), "|");
+
+        assertEquals(1, frames.size());
+        assertEquals(64, frames.get(0).length());
+    }
+
+    @Test
+    public void frameLongerThanTheMaxSize() throws IOException {
+        final char[] PAYLOAD = new char[64];
+        Arrays.fill(PAYLOAD, 'x');
+        try {
+            decode(new String(PAYLOAD), "|");
+            fail("Frame should be rejected");
+        } catch (IOException expected) {
+            assertEquals(0, frames.size());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package server;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GameLoopTest {
+
+    @Test
+    public void runsTasksInSubmissionOrder() throws InterruptedException {
+        final GameLoop LOOP = new GameLoop();
+        final List<Integer> EXECUTED = new ArrayList<>();
+        final CountDownLatch DONE = new CountDownLatch(1);
+
+        for (int i = 0; i < 1000; i++) {
+            final int TASK = i;
+            LOOP.execute(() -> EXECUTED.add(TASK));
+        }
+        LOOP.execute(DONE::countDown);
+
+        assertTrue(DONE.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, (int) EXECUTED.get(i));
+        }
+    }
+
+    @Test
+    public void neverRunsTasksConcurrently() throws InterruptedException {
+        final int SUBMITTERS = 8;
+        final int TASKS_PER_SUBMITTER = 10000;
+        final ExecutorService POOL = Executors.newFixedThreadPool(4);
+        final ExecutorService SUBMITTER_POOL = Executors.newFixedThreadPool(SUBMITTERS);
+        final GameLoop LOOP = new GameLoop(POOL);
+        final AtomicInteger RUNNING = new AtomicInteger();
+        final AtomicInteger OVERLAPS = new AtomicInteger();
+        final int[] counter = {0};
+        final CountDownLatch DONE = new CountDownLatch(SUBMITTERS * TASKS_PER_SUBMITTER);
+
+        for (int s = 0; s < SUBMITTERS; s++) {
+            SUBMITTER_POOL.execute(() -> {
+                for (int i = 0; i < TASKS_PER_SUBMITTER; i++) {
+                    LOOP.execute(() -> {
+                        if (RUNNING.incrementAndGet() != 1) {
+                            OVERLAPS.incrementAndGet();
+                        }
+                        counter[0]++;
+                        RUNNING.decrementAndGet();
+                        DONE.countDown();
+                    });
+                }
+            });
+        }
+
+        assertTrue(DONE.await(10, TimeUnit.SECONDS));
+        SUBMITTER_POOL.shutdown();
+        POOL.shutdown();
+
+        assertEquals(0, OVERLAPS.get());
+        assertEquals(SUBMITTERS * TASKS_PER_SUBMITTER, counter[0]);
+        assertEquals(0, LOOP.pendingTaskCount());
+    }
+
+    @Test
+    public void survivesFailingTask() throws InterruptedException {
+        final GameLoop LOOP = new GameLoop();
+        final CountDownLatch DONE = new CountDownLatch(1);
+
+        LOOP.execute(() -> {
+            throw new IllegalStateException("expected by the test");
+        });
+        LOOP.execute(DONE::countDown);
+
+        assertTrue(DONE.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void runsAfterTaskActionsOnceTheTaskIsDone() throws InterruptedException {
+        final GameLoop LOOP = new GameLoop();
+        final List<String> EVENTS = new ArrayList<>();
+        final CountDownLatch DONE = new CountDownLatch(1);
+
+        LOOP.execute(() -> {
+            assertSame(LOOP, GameLoop.current());
+            GameLoop.current().runAfterTask(() -> EVENTS.add("flush"));
+            EVENTS.add("first");
+        });
+        LOOP.execute(() -> {
+            EVENTS.add("second");
+            throw new IllegalStateException("expected by the test");
+        });
+        LOOP.execute(() -> GameLoop.current().runAfterTask(DONE::countDown));
+
+        assertTrue(DONE.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("first", "flush", "second"), EVENTS);
+        assertNull(GameLoop.current());
+    }
+}
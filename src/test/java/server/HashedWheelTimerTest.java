@@ -0,0 +1,78 @@
+package server;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HashedWheelTimerTest {
+
+    @Test
+    public void runsTaskAfterDelay() throws InterruptedException {
+        final HashedWheelTimer TIMER = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 8);
+        final CountDownLatch DONE = new CountDownLatch(1);
+
+        final long START = System.nanoTime();
+        final HashedWheelTimer.Timeout TIMEOUT = TIMER.newTimeout(DONE::countDown, 200, TimeUnit.MILLISECONDS);
+
+        assertTrue(DONE.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - START >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertTrue(TIMEOUT.isExpired());
+        assertFalse(TIMEOUT.cancel());
+        TIMER.stop();
+    }
+
+    @Test
+    public void cancelledTaskNeverRuns() throws InterruptedException {
+        final HashedWheelTimer TIMER = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 8);
+        final AtomicInteger RUNS = new AtomicInteger();
+        final CountDownLatch DONE = new CountDownLatch(1);
+
+        final HashedWheelTimer.Timeout TIMEOUT = TIMER.newTimeout(RUNS::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+        assertTrue(TIMEOUT.cancel());
+        assertFalse(TIMEOUT.cancel());
+        TIMER.newTimeout(DONE::countDown, 150, TimeUnit.MILLISECONDS);
+
+        assertTrue(DONE.await(5, TimeUnit.SECONDS));
+        assertEquals(0, RUNS.get());
+        assertTrue(TIMEOUT.isCancelled());
+        TIMER.stop();
+    }
+
+    @Test
+    public void handlesManyLiveTimeouts() throws InterruptedException {
+        final int COUNT = 50000;
+        // A small wheel, so the deadlines wrap around it several times.
+        final HashedWheelTimer TIMER = new HashedWheelTimer(5, TimeUnit.MILLISECONDS, 16);
+        final AtomicInteger RUNS = new AtomicInteger();
+        final CountDownLatch DONE = new CountDownLatch(COUNT / 2);
+        final List<HashedWheelTimer.Timeout> CANCELLED = new ArrayList<>();
+
+        for (int i = 0; i < COUNT; i++) {
+            final boolean KEEP = i % 2 == 0;
+            HashedWheelTimer.Timeout timeout = TIMER.newTimeout(() -> {
+                RUNS.incrementAndGet();
+                if (KEEP) {
+                    DONE.countDown();
+                }
+            }, 1000 + i % 400, TimeUnit.MILLISECONDS);
+            if (!KEEP) {
+                CANCELLED.add(timeout);
+            }
+        }
+        assertEquals(COUNT, TIMER.liveTimeoutCount());
+        for (HashedWheelTimer.Timeout timeout : CANCELLED) {
+            timeout.cancel();
+        }
+
+        assertTrue(DONE.await(10, TimeUnit.SECONDS));
+        assertEquals(COUNT / 2, RUNS.get());
+        assertEquals(0, TIMER.liveTimeoutCount());
+        TIMER.stop();
+    }
+}
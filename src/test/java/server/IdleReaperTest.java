@@ -0,0 +1,92 @@
+package server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IdleReaperTest {
+    private HashedWheelTimer timer;
+    private IdleReaper reaper;
+
+    @Before
+    public void setUp() {
+        timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 8);
+        reaper = new IdleReaper(timer, 50, TimeUnit.MILLISECONDS, 3);
+    }
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void silentConnectionIsPingedThenClosedOnce() throws InterruptedException {
+        final AtomicInteger PINGS = new AtomicInteger();
+        final AtomicInteger CLOSES = new AtomicInteger();
+        final CountDownLatch CLOSED = new CountDownLatch(1);
+
+        reaper.watch(PINGS::incrementAndGet, () -> {
+            CLOSES.incrementAndGet();
+            CLOSED.countDown();
+        });
+
+        assertTrue(CLOSED.await(5, TimeUnit.SECONDS));
+        assertTrue(PINGS.get() > 0);
+
+        // Nothing happens once the connection is closed.
+        final int PINGS_BEFORE_CLOSE = PINGS.get();
+        Thread.sleep(300);
+        assertEquals(PINGS_BEFORE_CLOSE, PINGS.get());
+        assertEquals(1, CLOSES.get());
+    }
+
+    @Test
+    public void connectionTheClientTalksOnStaysOpen() throws InterruptedException {
+        final AtomicInteger CLOSES = new AtomicInteger();
+        final CountDownLatch CLOSED = new CountDownLatch(1);
+
+        final IdleReaper.Heartbeat HEARTBEAT = reaper.watch(() -> {
+        }, () -> {
+            CLOSES.incrementAndGet();
+            CLOSED.countDown();
+        });
+
+        final long END = System.currentTimeMillis() + 500;
+        while (System.currentTimeMillis() < END) {
+            HEARTBEAT.touch();
+            Thread.sleep(10);
+        }
+        assertEquals(0, CLOSES.get());
+
+        // Closed once the client stops answering.
+        assertTrue(CLOSED.await(5, TimeUnit.SECONDS));
+        assertTrue(HEARTBEAT.missedHeartbeats() >= 3);
+    }
+
+    @Test
+    public void cancelledHeartbeatIsNeitherPingedNorClosed() throws InterruptedException {
+        final AtomicInteger CALLS = new AtomicInteger();
+
+        reaper.watch(CALLS::incrementAndGet, CALLS::incrementAndGet).cancel();
+
+        Thread.sleep(300);
+        assertEquals(0, CALLS.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveInterval() {
+        new IdleReaper(timer, 0, TimeUnit.MILLISECONDS, 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveMissedHeartbeats() {
+        new IdleReaper(timer, 50, TimeUnit.MILLISECONDS, 0);
+    }
+}
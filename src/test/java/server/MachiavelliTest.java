@@ -1,5 +1,63 @@
 package server;
 
+import org.junit.Test;
+import server.models.Machiavelli;
+import server.models.Player;
+import utils.constants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
 public class MachiavelliTest {
 
-}
\ No newline at end of file
+    @Test
+    public void gameIsReproducibleFromSeed() {
+        final long SEED = 20240601L;
+
+        assertEquals(dealHands(new Machiavelli(1, 3, SEED)), dealHands(new Machiavelli(2, 3, SEED)));
+    }
+
+    @Test
+    public void rematchStartsOnceEveryPlayerAsked() {
+        final Machiavelli GAME = new Machiavelli(1, 2, 7L);
+        final Player FIRST = GAME.addPlayer();
+        final Player SECOND = GAME.addPlayer();
+
+        GAME.requestRematch(FIRST);
+        assertEquals(0, FIRST.getHand().totalCount());
+
+        GAME.requestRematch(SECOND);
+        assertEquals(constants.HAND_SIZE, FIRST.getHand().totalCount());
+        assertEquals(constants.HAND_SIZE, SECOND.getHand().totalCount());
+    }
+
+    @Test
+    public void noRematchWhileGameIsRunning() {
+        final Machiavelli GAME = new Machiavelli(1, 2, 7L);
+        final Player FIRST = GAME.addPlayer();
+        final Player SECOND = GAME.addPlayer();
+        GAME.startGame();
+        final String HAND = FIRST.getHand().toString();
+
+        GAME.requestRematch(FIRST);
+        GAME.requestRematch(SECOND);
+
+        assertEquals(HAND, FIRST.getHand().toString());
+    }
+
+    private List<String> dealHands(Machiavelli game) {
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            players.add(game.addPlayer());
+        }
+        game.startGame();
+
+        List<String> hands = new ArrayList<>();
+        for (Player player : players) {
+            hands.add(player.getHand().toString());
+        }
+        return hands;
+    }
+}
@@ -0,0 +1,235 @@
+package server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import server.proactor.ReadCompletionHandler;
+import server.proactor.SessionState;
+import server.proactor.WriteCompletionHandler;
+
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousServerSocketChannel;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProactorTest {
+    private AsynchronousChannelGroup group;
+    private AsynchronousServerSocketChannel listener;
+
+    @Before
+    public void setUp() throws Exception {
+        group = AsynchronousChannelGroup.withFixedThreadPool(2, Executors.defaultThreadFactory());
+        listener = AsynchronousServerSocketChannel.open(group).bind(new InetSocketAddress("localhost", 0));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        listener.close();
+        group.shutdownNow();
+    }
+
+    @Test
+    public void writesFromManyThreadsArriveWholeAndInOrder() throws Exception {
+        final int THREAD_COUNT = 4;
+        final int COMMANDS_PER_THREAD = 500;
+        final int LARGE_SIZE = 256 * 1024;
+
+        try (SocketChannel CLIENT = SocketChannel.open(listener.getLocalAddress())) {
+            final AsynchronousSocketChannel ACCEPTED = listener.accept().get(5, TimeUnit.SECONDS);
+            // Everything queued stays under the high watermark.
+            final WriteCompletionHandler HANDLER = WriteCompletionHandler.getHandler(ACCEPTED, new OutboundLimits(
+                    64 * 1024 * 1024, 0, OutboundLimits.SlowClientPolicy.DISCONNECT));
+
+            // The client doesn't read until everything is queued, so the large buffers are only written in parts.
+            final CountDownLatch QUEUED = new CountDownLatch(THREAD_COUNT);
+            for (int t = 0; t < THREAD_COUNT; t++) {
+                final int THREAD = t;
+                new Thread(() -> {
+                    for (int i = 0; i < COMMANDS_PER_THREAD; i++) {
+                        String command = THREAD + "&" + i + "|";
+                        HANDLER.write(ByteBuffer.wrap(command.getBytes(StandardCharsets.UTF_8)), new SessionState());
+                        if (i % 100 == 0) {
+                            byte[] large = new byte[LARGE_SIZE];
+                            Arrays.fill(large, (byte) 'x');
+                            large[LARGE_SIZE - 1] = '|';
+                            HANDLER.write(ByteBuffer.wrap(large), new SessionState());
+                        }
+                    }
+                    QUEUED.countDown();
+                }).start();
+            }
+            assertTrue(QUEUED.await(5, TimeUnit.SECONDS));
+
+            final int[] NEXT = new int[THREAD_COUNT];
+            final ByteBuffer RECEIVED = ByteBuffer.allocate(64 * 1024);
+            final StringBuilder FRAME = new StringBuilder();
+            int commandCount = 0;
+            int largeCount = 0;
+            while (commandCount < THREAD_COUNT * COMMANDS_PER_THREAD) {
+                RECEIVED.clear();
+                assertTrue(CLIENT.read(RECEIVED) > 0);
+                for (int i = 0; i < RECEIVED.position(); i++) {
+                    char c = (char) RECEIVED.get(i);
+                    if (c != '|') {
+                        FRAME.append(c);
+                        continue;
+                    }
+                    if (FRAME.charAt(0) == 'x') {
+                        assertEquals(LARGE_SIZE - 1, FRAME.length());
+                        largeCount++;
+                    } else {
+                        String[] parts = FRAME.toString().split("&");
+                        int thread = Integer.parseInt(parts[0]);
+                        assertEquals(NEXT[thread]++, Integer.parseInt(parts[1]));
+                        commandCount++;
+                    }
+                    FRAME.setLength(0);
+                }
+            }
+            assertEquals(THREAD_COUNT * COMMANDS_PER_THREAD / 100, largeCount);
+            WriteCompletionHandler.removeHandler(ACCEPTED);
+        }
+    }
+
+    @Test
+    public void disconnectReleasesQueuedBuffersAndTheHandler() throws Exception {
+        final BufferPool POOL = new BufferPool();
+        final SharedBuffer SHARED = SharedBuffer.encode("WHO_ARE_YOU|", POOL);
+
+        final SocketChannel CLIENT = SocketChannel.open(listener.getLocalAddress());
+        final AsynchronousSocketChannel ACCEPTED = listener.accept().get(5, TimeUnit.SECONDS);
+        final int HANDLER_COUNT = WriteCompletionHandler.handlerCount();
+        final WriteCompletionHandler HANDLER = WriteCompletionHandler.getHandler(ACCEPTED);
+        assertEquals(HANDLER_COUNT + 1, WriteCompletionHandler.handlerCount());
+
+        CLIENT.close();
+        // Writes fail once the client has gone, the handler cleans up after itself.
+        final long DEADLINE = System.currentTimeMillis() + 5000;
+        while (ACCEPTED.isOpen() && System.currentTimeMillis() < DEADLINE) {
+            HANDLER.write(SHARED, new SessionState());
+            Thread.sleep(10);
+        }
+        assertFalse(ACCEPTED.isOpen());
+        while (SHARED.refCount() > 1 && System.currentTimeMillis() < DEADLINE) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, SHARED.refCount());
+        assertEquals(HANDLER_COUNT, WriteCompletionHandler.handlerCount());
+
+        // Writing to a handler that has been dropped only gives the reference back.
+        HANDLER.write(SHARED, new SessionState());
+        assertEquals(1, SHARED.refCount());
+        SHARED.release();
+        assertEquals(0, POOL.inUseBufferCount());
+    }
+
+    @Test
+    public void closeWhenWrittenSendsWhatIsQueuedFirst() throws Exception {
+        try (SocketChannel CLIENT = SocketChannel.open(listener.getLocalAddress())) {
+            final AsynchronousSocketChannel ACCEPTED = listener.accept().get(5, TimeUnit.SECONDS);
+            final int HANDLER_COUNT = WriteCompletionHandler.handlerCount();
+            final WriteCompletionHandler HANDLER = WriteCompletionHandler.getHandler(ACCEPTED);
+            HANDLER.write(ByteBuffer.wrap("TABLE_IS_FULL|".getBytes(StandardCharsets.UTF_8)), new SessionState());
+            HANDLER.closeWhenWritten();
+
+            // Everything arrives, then the end of the stream.
+            final ByteBuffer RECEIVED = ByteBuffer.allocate(64);
+            while (CLIENT.read(RECEIVED) >= 0) {
+                assertTrue(RECEIVED.hasRemaining());
+            }
+            assertEquals("TABLE_IS_FULL|", new String(RECEIVED.array(), 0, RECEIVED.position(), StandardCharsets.UTF_8));
+            assertFalse(ACCEPTED.isOpen());
+            assertEquals(HANDLER_COUNT, WriteCompletionHandler.handlerCount());
+        }
+    }
+
+    @Test
+    public void oversizedFrameDropsTheClientAndGivesTheReadBufferBack() throws Exception {
+        try (SocketChannel CLIENT = SocketChannel.open(listener.getLocalAddress())) {
+            final AsynchronousSocketChannel ACCEPTED = listener.accept().get(5, TimeUnit.SECONDS);
+            final SessionState SESSION_STATE = new SessionState();
+            final ReadCompletionHandler HANDLER = new ReadCompletionHandler(ACCEPTED, SESSION_STATE);
+            final int IN_USE_BUFFER_COUNT = BufferPool.getInstance().inUseBufferCount();
+            HANDLER.start(SESSION_STATE);
+
+            // Arrives over several reads, without an EOC.
+            final byte[] FRAME = new byte[FrameDecoder.DEFAULT_MAX_FRAME_SIZE + 1];
+            Arrays.fill(FRAME, (byte) 'x');
+            CLIENT.write(ByteBuffer.wrap(FRAME));
+
+            final long DEADLINE = System.currentTimeMillis() + 5000;
+            while (ACCEPTED.isOpen() && System.currentTimeMillis() < DEADLINE) {
+                Thread.sleep(10);
+            }
+            assertFalse(ACCEPTED.isOpen());
+            assertEquals(IN_USE_BUFFER_COUNT - 1, BufferPool.getInstance().inUseBufferCount());
+        }
+    }
+
+    @Test
+    public void slowClientIsDisconnectedOverTheHighWatermark() throws Exception {
+        final int HIGH_WATERMARK = 1024 * 1024;
+        final SocketChannel CLIENT = SocketChannel.open(listener.getLocalAddress());
+        final AsynchronousSocketChannel ACCEPTED = listener.accept().get(5, TimeUnit.SECONDS);
+        final WriteCompletionHandler HANDLER = WriteCompletionHandler.getHandler(ACCEPTED,
+                new OutboundLimits(HIGH_WATERMARK, 0, OutboundLimits.SlowClientPolicy.DISCONNECT));
+
+        // The client never reads, once the socket buffers are full the queue grows up to the high watermark.
+        for (int i = 0; i < 1000 && ACCEPTED.isOpen(); i++) {
+            HANDLER.write(ByteBuffer.allocate(64 * 1024), new SessionState());
+            assertTrue(HANDLER.queuedByteCount() <= HIGH_WATERMARK);
+        }
+        assertFalse(ACCEPTED.isOpen());
+
+        // The write in progress fails once the channel is closed.
+        final long DEADLINE = System.currentTimeMillis() + 5000;
+        while (HANDLER.queuedByteCount() > 0 && System.currentTimeMillis() < DEADLINE) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, HANDLER.queuedByteCount());
+        CLIENT.close();
+    }
+
+    @Test
+    public void slowClientOnlyGetsTheLatestTable() throws Exception {
+        // Small socket buffers, so what the kernel absorbs stays far below what the tables add up to.
+        final int SOCKET_BUFFER_SIZE = 4 * 1024;
+        final int HIGH_WATERMARK = 64 * 1024;
+        final char[] TABLE = new char[4000];
+        try (SocketChannel CLIENT = SocketChannel.open()) {
+            CLIENT.setOption(StandardSocketOptions.SO_RCVBUF, SOCKET_BUFFER_SIZE);
+            CLIENT.connect(listener.getLocalAddress());
+            final AsynchronousSocketChannel ACCEPTED = listener.accept().get(5, TimeUnit.SECONDS);
+            ACCEPTED.setOption(StandardSocketOptions.SO_SNDBUF, SOCKET_BUFFER_SIZE);
+            final WriteCompletionHandler HANDLER = WriteCompletionHandler.getHandler(ACCEPTED, new OutboundLimits(
+                    HIGH_WATERMARK, HIGH_WATERMARK / 4, OutboundLimits.SlowClientPolicy.DROP_STALE_TABLE));
+
+            // The client never reads, the tables add up to far more than the socket buffers and the high watermark.
+            for (int i = 0; i < 1000; i++) {
+                Arrays.fill(TABLE, (char) ('a' + i % 26));
+                final SharedBuffer SHARED = SharedBuffer.encodeTableState(new String(TABLE));
+                HANDLER.write(SHARED, new SessionState());
+                SHARED.release();
+                assertTrue(HANDLER.queuedByteCount() <= HIGH_WATERMARK);
+            }
+            assertTrue(ACCEPTED.isOpen());
+            assertTrue(HANDLER.droppedBufferCount() > 0);
+
+            // Nothing can be dropped to make room for other commands, this one is over the high watermark by itself.
+            HANDLER.write(ByteBuffer.allocate(HIGH_WATERMARK + 1), new SessionState());
+            assertFalse(ACCEPTED.isOpen());
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package server;
+
+import org.junit.Test;
+import server.models.Player;
+import server.reactor.ClientSession;
+import server.reactor.ClientWriteEventHandler;
+import server.reactor.Reactor;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ReactorTest {
+
+    @Test
+    public void registersChannelsFromOtherThreads() throws Exception {
+        final Reactor REACTOR = new Reactor();
+        final Object ATTACHMENT = new Object();
+        final AtomicReference<Thread> REGISTERING_THREAD = new AtomicReference<>();
+        final AtomicReference<Object> READ_ATTACHMENT = new AtomicReference<>();
+        final CountDownLatch REGISTERED = new CountDownLatch(1);
+        final CountDownLatch READ = new CountDownLatch(1);
+
+        REACTOR.registerEventHandler(SelectionKey.OP_READ, key -> {
+            ((Pipe.SourceChannel) key.channel()).read(ByteBuffer.allocate(16));
+            READ_ATTACHMENT.set(key.attachment());
+            READ.countDown();
+        });
+        final Thread REACTOR_THREAD = new Thread(REACTOR::run, "reactor-test");
+        REACTOR_THREAD.setDaemon(true);
+        REACTOR_THREAD.start();
+
+        final Pipe PIPE = Pipe.open();
+        PIPE.source().configureBlocking(false);
+        REACTOR.registerClient(PIPE.source(), SelectionKey.OP_READ, ATTACHMENT, key -> {
+            REGISTERING_THREAD.set(Thread.currentThread());
+            REGISTERED.countDown();
+        });
+        assertTrue(REGISTERED.await(5, TimeUnit.SECONDS));
+        assertSame(REACTOR_THREAD, REGISTERING_THREAD.get());
+
+        PIPE.sink().write(ByteBuffer.wrap("PING|".getBytes()));
+        assertTrue(READ.await(5, TimeUnit.SECONDS));
+        assertSame(ATTACHMENT, READ_ATTACHMENT.get());
+    }
+
+    @Test
+    public void failedRegistrationIsReported() throws Exception {
+        final Reactor REACTOR = new Reactor();
+        final Thread REACTOR_THREAD = new Thread(REACTOR::run, "reactor-test");
+        REACTOR_THREAD.setDaemon(true);
+        REACTOR_THREAD.start();
+
+        final Pipe PIPE = Pipe.open();
+        PIPE.source().configureBlocking(false);
+        // A closed channel can't be registered.
+        PIPE.source().close();
+        final CountDownLatch FAILED = new CountDownLatch(1);
+        REACTOR.registerClient(PIPE.source(), SelectionKey.OP_READ, null, key -> {
+            throw new AssertionError("A closed channel was registered");
+        }, FAILED::countDown);
+        assertTrue(FAILED.await(5, TimeUnit.SECONDS));
+        PIPE.sink().close();
+    }
+
+    @Test
+    public void closedSessionIsNotSeated() throws Exception {
+        try (ServerSocketChannel SERVER = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0))) {
+            final SocketChannel CLIENT = SocketChannel.open(SERVER.getLocalAddress());
+            final ClientSession SESSION = new ClientSession(SERVER.accept());
+            SESSION.close();
+
+            assertFalse(SESSION.seatPlayer(new Player(0, "Player0")));
+            assertNull(SESSION.getPlayer());
+            assertEquals(-1, CLIENT.read(ByteBuffer.allocate(1)));
+            CLIENT.close();
+        }
+    }
+
+    @Test
+    public void slowClientDoesNotBlockTheSender() throws Exception {
+        final int BUFFER_SIZE = 64 * 1024;
+        final int BUFFER_COUNT = 64;
+        final Reactor REACTOR = new Reactor();
+        REACTOR.registerEventHandler(SelectionKey.OP_WRITE, new ClientWriteEventHandler());
+        final Thread REACTOR_THREAD = new Thread(REACTOR::run, "reactor-test");
+        REACTOR_THREAD.setDaemon(true);
+        REACTOR_THREAD.start();
+
+        try (ServerSocketChannel SERVER = ServerSocketChannel.open()) {
+            SERVER.bind(new InetSocketAddress("localhost", 0));
+            final SocketChannel CLIENT = SocketChannel.open(SERVER.getLocalAddress());
+            final SocketChannel ACCEPTED = SERVER.accept();
+            ACCEPTED.configureBlocking(false);
+
+            // The whole burst stays under the high watermark.
+            final ClientSession SESSION = new ClientSession(ACCEPTED, new OutboundLimits(
+                    BUFFER_SIZE * BUFFER_COUNT, 0, OutboundLimits.SlowClientPolicy.DISCONNECT));
+            final CountDownLatch REGISTERED = new CountDownLatch(1);
+            REACTOR.registerClient(ACCEPTED, SelectionKey.OP_READ, SESSION, key -> {
+                SESSION.setKey(key);
+                REGISTERED.countDown();
+            });
+            assertTrue(REGISTERED.await(5, TimeUnit.SECONDS));
+
+            // Far more than the socket buffers hold while the client isn't reading.
+            for (int i = 0; i < BUFFER_COUNT; i++) {
+                final byte[] BYTES = new byte[BUFFER_SIZE];
+                Arrays.fill(BYTES, (byte) i);
+                SESSION.send(ByteBuffer.wrap(BYTES));
+            }
+            assertTrue(SESSION.queuedBufferCount() > 0);
+            assertTrue((SESSION.getKey().interestOps() & SelectionKey.OP_WRITE) != 0);
+
+            final ByteBuffer RECEIVED = ByteBuffer.allocate(BUFFER_SIZE);
+            for (int i = 0; i < BUFFER_COUNT; i++) {
+                RECEIVED.clear();
+                while (RECEIVED.hasRemaining()) {
+                    CLIENT.read(RECEIVED);
+                }
+                assertEquals("first byte of buffer " + i, (byte) i, RECEIVED.get(0));
+                assertEquals("last byte of buffer " + i, (byte) i, RECEIVED.get(BUFFER_SIZE - 1));
+            }
+
+            final long DEADLINE = System.currentTimeMillis() + 5000;
+            while ((SESSION.getKey().interestOps() & SelectionKey.OP_WRITE) != 0
+                    && System.currentTimeMillis() < DEADLINE) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, SESSION.queuedBufferCount());
+            assertEquals(0, SESSION.getKey().interestOps() & SelectionKey.OP_WRITE);
+            CLIENT.close();
+        }
+    }
+
+    @Test
+    public void slowClientIsDisconnectedOverTheHighWatermark() throws Exception {
+        final int HIGH_WATERMARK = 1024 * 1024;
+        try (ServerSocketChannel SERVER = ServerSocketChannel.open()) {
+            SERVER.bind(new InetSocketAddress("localhost", 0));
+            final SocketChannel CLIENT = SocketChannel.open(SERVER.getLocalAddress());
+            final SocketChannel ACCEPTED = SERVER.accept();
+            ACCEPTED.configureBlocking(false);
+            final ClientSession SESSION = new ClientSession(ACCEPTED,
+                    new OutboundLimits(HIGH_WATERMARK, 0, OutboundLimits.SlowClientPolicy.DISCONNECT));
+
+            // The client never reads, once the socket buffers are full the queue grows up to the high watermark.
+            for (int i = 0; i < 1000 && ACCEPTED.isOpen(); i++) {
+                SESSION.send(ByteBuffer.allocate(64 * 1024));
+                assertTrue(SESSION.queuedByteCount() <= HIGH_WATERMARK);
+            }
+            assertFalse(ACCEPTED.isOpen());
+            assertEquals(0, SESSION.queuedByteCount());
+            CLIENT.close();
+        }
+    }
+
+    @Test
+    public void slowClientOnlyGetsTheLatestTable() throws Exception {
+        final int HIGH_WATERMARK = 1024 * 1024;
+        final char[] TABLE = new char[4000];
+        try (ServerSocketChannel SERVER = ServerSocketChannel.open()) {
+            SERVER.bind(new InetSocketAddress("localhost", 0));
+            final SocketChannel CLIENT = SocketChannel.open(SERVER.getLocalAddress());
+            final SocketChannel ACCEPTED = SERVER.accept();
+            ACCEPTED.configureBlocking(false);
+            final ClientSession SESSION = new ClientSession(ACCEPTED,
+                    new OutboundLimits(HIGH_WATERMARK, HIGH_WATERMARK / 4, OutboundLimits.SlowClientPolicy.DROP_STALE_TABLE));
+
+            for (int i = 0; i < 5000; i++) {
+                Arrays.fill(TABLE, (char) ('a' + i % 26));
+                final SharedBuffer SHARED = SharedBuffer.encodeTableState(new String(TABLE));
+                SESSION.send(SHARED);
+                SHARED.release();
+                assertTrue(SESSION.queuedByteCount() <= HIGH_WATERMARK);
+            }
+            assertTrue(ACCEPTED.isOpen());
+            assertTrue(SESSION.droppedBufferCount() > 0);
+
+            // Nothing can be dropped to make room for other commands.
+            SESSION.send(ByteBuffer.allocate(HIGH_WATERMARK));
+            assertFalse(ACCEPTED.isOpen());
+            CLIENT.close();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package server;
+
+import utils.constants;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Puts the same load on every server mode and compares throughput and latency.
+ * Clients fill two-player tables and, once dealt, pass turns one after the other; in the turn based modes a client
+ * waits for its turn before passing. The latency of a pass is the time from sending PASS_TURN to receiving the card
+ * it draws; the other player only sees a hidden card.
+ * Not a unit test, run it with one or more modes, all of them by default:
+ * <pre>
+ * java -cp target/classes:target/test-classes server.ServerModeBenchmark REACTIVE VIRTUAL_THREADS
+ * </pre>
+ */
+public class ServerModeBenchmark {
+    private static final int PLAYERS_PER_TABLE = 2;
+    private static final int TABLES = 100;
+    private static final int PASSES_PER_CLIENT = 20;
+    private static final int FIRST_PORT = 41000;
+
+    public static void main(String[] args) throws Exception {
+        // The server logs every command it sends.
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        List<constants.GameMode> modes = new ArrayList<>();
+        for (String arg : args) {
+            modes.add(constants.GameMode.valueOf(arg));
+        }
+        if (modes.isEmpty()) {
+            modes.addAll(Arrays.asList(constants.GameMode.values()));
+        }
+
+        out.println(TABLES + " tables, " + TABLES * PLAYERS_PER_TABLE + " clients, "
+                + PASSES_PER_CLIENT + " passes per client");
+        try {
+            for (int i = 0; i < modes.size(); i++) {
+                out.println(run(modes.get(i), FIRST_PORT + i));
+            }
+        } finally {
+            System.setOut(out);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * @param mode
+     * @param port
+     * @return the results of the mode.
+     */
+    private static String run(constants.GameMode mode, int port) throws Exception {
+        CyclicBarrier ready = new CyclicBarrier(2);
+        Thread server = new Thread(new Server(port, PLAYERS_PER_TABLE, mode, ready), "server-" + mode);
+        server.setDaemon(true);
+        server.start();
+        ready.await();
+
+        int clientCount = TABLES * PLAYERS_PER_TABLE;
+        CountDownLatch dealt = new CountDownLatch(clientCount);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(clientCount);
+        long[][] latencies = new long[clientCount][];
+        for (int i = 0; i < clientCount; i++) {
+            final int client = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    latencies[client] = play(mode, port, dealt, start);
+                } catch (IOException | InterruptedException e) {
+                    e.printStackTrace();
+                }
+                done.countDown();
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        if (!dealt.await(60, TimeUnit.SECONDS)) {
+            return mode + ": tables weren't dealt in time";
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        if (!done.await(120, TimeUnit.SECONDS)) {
+            return mode + ": passes didn't complete in time";
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        long[] all = new long[clientCount * PASSES_PER_CLIENT];
+        int count = 0;
+        for (long[] clientLatencies : latencies) {
+            if (clientLatencies != null) {
+                System.arraycopy(clientLatencies, 0, all, count, clientLatencies.length);
+                count += clientLatencies.length;
+            }
+        }
+        Arrays.sort(all, 0, count);
+        return String.format("%-16s %8.0f passes/s   p50 %7.2f ms   p99 %7.2f ms   p99.9 %7.2f ms   max %7.2f ms",
+                mode, count / (elapsed / 1e9), percentile(all, count, 0.5), percentile(all, count, 0.99),
+                percentile(all, count, 0.999), all[count - 1] / 1e6);
+    }
+
+    /**
+     * @param sorted
+     * @param count
+     * @param fraction
+     * @return the percentile in milliseconds.
+     */
+    private static double percentile(long[] sorted, int count, double fraction) {
+        return sorted[Math.min(count - 1, (int) (count * fraction))] / 1e6;
+    }
+
+    /**
+     * One client: waits for its hand, then passes turns.
+     *
+     * @param mode
+     * @param port
+     * @param dealt counted down once the hand has arrived.
+     * @param start released when every table has been dealt.
+     * @return latency of every pass, in nanoseconds.
+     */
+    private static long[] play(constants.GameMode mode, int port, CountDownLatch dealt, CountDownLatch start)
+            throws IOException, InterruptedException {
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", port))) {
+            CommandReader reader = new CommandReader(channel);
+            // WELCOME&name&id&seat&...
+            String seat = reader.waitFor("WELCOME", "").split("&")[3];
+            String myTurn = mode == constants.GameMode.PROACTIVE ? null : "SWITCH_TURN&" + seat + "&";
+            reader.waitFor("DEAL_HANDS", "");
+            dealt.countDown();
+            start.await();
+
+            ByteBuffer passTurn = ByteBuffer.wrap("PASS_TURN|".getBytes(StandardCharsets.UTF_8));
+            long[] latencies = new long[PASSES_PER_CLIENT];
+            for (int i = 0; i < PASSES_PER_CLIENT; i++) {
+                if (myTurn != null) {
+                    reader.waitFor(myTurn, "");
+                }
+                long sent = System.nanoTime();
+                passTurn.rewind();
+                channel.write(passTurn);
+                reader.waitFor("DRAW_CARD", "hidden");
+                latencies[i] = System.nanoTime() - sent;
+            }
+            return latencies;
+        }
+    }
+
+    /**
+     * Blocking reader of the commands the server sends.
+     */
+    private static final class CommandReader {
+        private final SocketChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        private final StringBuilder received = new StringBuilder();
+
+        private CommandReader(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Skips commands until one with the given name arrives, answering the heartbeats of the server meanwhile.
+         *
+         * @param name
+         * @param unless commands containing this text are skipped too, empty to take any.
+         * @return the command, without its EOC.
+         */
+        private String waitFor(String name, String unless) throws IOException {
+            while (true) {
+                int end;
+                while ((end = received.indexOf("|")) >= 0) {
+                    String command = received.substring(0, end);
+                    received.delete(0, end + 1);
+                    if (command.equals("PING")) {
+                        channel.write(ByteBuffer.wrap("PONG|".getBytes(StandardCharsets.UTF_8)));
+                    }
+                    if (command.startsWith(name) && (unless.isEmpty() || !command.contains(unless))) {
+                        return command;
+                    }
+                }
+                buffer.clear();
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Server closed the connection");
+                }
+                received.append(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package server;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SharedBufferTest {
+
+    private static String read(ByteBuffer view) {
+        byte[] bytes = new byte[view.remaining()];
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void viewsAreIndependent() {
+        final SharedBuffer SHARED = SharedBuffer.encode("PLAYER_MOVE&1&2&3s,4s,5s|", new BufferPool());
+        final ByteBuffer FIRST = SHARED.view();
+        final ByteBuffer SECOND = SHARED.view();
+
+        assertTrue(FIRST.isReadOnly());
+        assertEquals("PLAYER_MOVE&1&2&3s,4s,5s|", read(FIRST));
+        assertFalse(FIRST.hasRemaining());
+        assertEquals("PLAYER_MOVE&1&2&3s,4s,5s|", read(SECOND));
+        assertEquals(25, SHARED.size());
+    }
+
+    @Test
+    public void lastReleaseReturnsTheBufferToThePool() {
+        final BufferPool POOL = new BufferPool();
+        final SharedBuffer SHARED = SharedBuffer.encode("WHO_ARE_YOU|", POOL);
+
+        SHARED.retain();
+        SHARED.retain();
+        SHARED.release();
+        SHARED.release();
+        assertEquals(1, POOL.inUseBufferCount());
+
+        SHARED.release();
+        assertEquals(0, SHARED.refCount());
+        assertEquals(0, POOL.inUseBufferCount());
+
+        final ByteBuffer REUSED = POOL.acquire(16);
+        assertEquals(1, POOL.inUseBufferCount());
+        assertEquals(0, REUSED.position());
+        assertEquals(REUSED.capacity(), REUSED.limit());
+    }
+
+    @Test
+    public void largeCommandsAreNotPooled() {
+        final BufferPool POOL = new BufferPool();
+        final char[] TABLE = new char[BufferPool.MAX_POOLED_SIZE + 1];
+        Arrays.fill(TABLE, 'x');
+
+        final SharedBuffer SHARED = SharedBuffer.encode(new String(TABLE), POOL);
+        assertEquals(BufferPool.MAX_POOLED_SIZE + 1, SHARED.size());
+        assertEquals(0, POOL.inUseBufferCount());
+        assertEquals(1, POOL.unpooledAllocationCount());
+
+        SHARED.release();
+        assertEquals(0, POOL.freeBufferCount());
+    }
+
+    @Test
+    public void slicesKeepTheBatchUntilTheLastIsReleased() {
+        final BufferPool POOL = new BufferPool();
+        final SharedBuffer BATCH = SharedBuffer.encode(64, buffer -> buffer.put("WHO_ARE_YOU|WELCOME&1|".getBytes(StandardCharsets.UTF_8)), POOL);
+        final SharedBuffer FIRST = BATCH.slice(0, 12);
+        final SharedBuffer SECOND = BATCH.slice(12, BATCH.size());
+
+        assertEquals("WHO_ARE_YOU|", read(FIRST.view()));
+        assertEquals("WELCOME&1|", read(SECOND.view()));
+        assertEquals(10, SECOND.size());
+
+        BATCH.release();
+        FIRST.release();
+        assertEquals(1, POOL.inUseBufferCount());
+
+        SECOND.release();
+        assertEquals(0, BATCH.refCount());
+        assertEquals(0, POOL.inUseBufferCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sliceMustBeWithinTheEncodedBytes() {
+        final SharedBuffer BATCH = SharedBuffer.encode("WHO_ARE_YOU|", new BufferPool());
+        BATCH.slice(0, BATCH.size() + 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotRetainAReleasedBuffer() {
+        final SharedBuffer SHARED = SharedBuffer.encode("WHO_ARE_YOU|", new BufferPool());
+        SHARED.release();
+        SHARED.retain();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotReleaseTwice() {
+        final SharedBuffer SHARED = SharedBuffer.encode("WHO_ARE_YOU|", new BufferPool());
+        SHARED.release();
+        SHARED.release();
+    }
+}
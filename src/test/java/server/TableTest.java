@@ -2,22 +2,25 @@ package server;
 
 import org.junit.Test;
 import server.models.CardSet;
+import server.models.Deck;
+import server.models.PackedCardSet;
 import server.models.Table;
 import server.models.cards.Basic;
 import server.models.cards.Card;
 import server.models.cards.Suit;
 
 import java.util.ArrayList;
-import java.util.Stack;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class TableTest {
 
     @Test
     public void testConstructor() {
-        final Stack<Card> INITIAL_DECK = new Stack<>();
+        final Deck INITIAL_DECK = new Deck(1);
         final ArrayList<CardSet> INITIAL_Card_SETS = new ArrayList<>();
 
         final Table table = new Table();
@@ -30,25 +33,18 @@ public class TableTest {
 
     @Test
     public void setDeck() {
-        final Stack<Card> DECK = new Stack<>();
+        final Deck DECK = new Deck(42);
+        DECK.draw();
 
-        final Suit SUIT = Suit.SPADES;
-        final int RANK = 4;
-        final int CARD_ID = 1;
+        final Table TABLE = new Table();
 
-        try {
-            final Card CARD = new Basic(SUIT, RANK, CARD_ID);
-
-            DECK.add(CARD);
+        TABLE.setDeck(DECK);
 
-            final Table TABLE = new Table();
+        assertEquals("getDeck() != DECK", DECK, TABLE.getDeck());
+        assertEquals(Deck.SIZE - 1, TABLE.getDeck().size());
 
-            TABLE.setDeck(DECK);
-
-            assertEquals("getDeck() != DECK", DECK, TABLE.getDeck());
-        } catch (IllegalArgumentException e) {
-            fail("Unexpected Exception!");
-        }
+        TABLE.initMachiavelliDeck();
+        assertEquals(Deck.SIZE, TABLE.getDeck().size());
     }
 
     @Test
@@ -78,4 +74,59 @@ public class TableTest {
             fail("Unexpected Exception");
         }
     }
+
+    @Test
+    public void commitMove() {
+        final Table TABLE = new Table();
+        final ArrayList<CardSet> FIRST_MOVE = new ArrayList<>();
+        FIRST_MOVE.add(new CardSet("2s,3s,4s"));
+
+        TABLE.commitMove(FIRST_MOVE, new CardSet("2s,3s,4s"));
+
+        final ArrayList<CardSet> SECOND_MOVE = new ArrayList<>();
+        SECOND_MOVE.add(new CardSet("2s,3s,4s,5s"));
+        SECOND_MOVE.add(new CardSet("2d,2h,2c"));
+
+        TABLE.commitMove(SECOND_MOVE, new CardSet("5s,2d,2h,2c"));
+
+        assertEquals("getCardSets() != SECOND_MOVE", SECOND_MOVE, TABLE.getCardSets());
+        assertEquals(new PackedCardSet(new CardSet("2s,3s,4s,5s,2d,2h,2c")), TABLE.getCardsOnTable());
+        assertEquals(new CardSet("2c,2d,2h,2s,3s,4s,5s"), TABLE.getAllCardsInASet());
+
+        TABLE.setCardSets(FIRST_MOVE);
+        assertEquals(new PackedCardSet(new CardSet("2s,3s,4s")), TABLE.getCardsOnTable());
+    }
+
+    @Test
+    public void reset() {
+        final Table TABLE = new Table();
+        final ArrayList<CardSet> MOVE = new ArrayList<>();
+        MOVE.add(new CardSet("2s,3s,4s"));
+        TABLE.commitMove(MOVE, new CardSet("2s,3s,4s"));
+        TABLE.getDeck().drawHand(15);
+        final Deck DECK = TABLE.getDeck();
+        final int VERSION = TABLE.getVersion();
+
+        TABLE.reset();
+
+        assertSame(DECK, TABLE.getDeck());
+        assertEquals(Deck.SIZE, TABLE.getDeck().size());
+        assertTrue(TABLE.getCardSets().isEmpty());
+        assertTrue(TABLE.getCardsOnTable().isEmpty());
+        assertEquals(VERSION + 1, TABLE.getVersion());
+    }
+
+    @Test
+    public void getVersion() {
+        final Table TABLE = new Table();
+        final int START_VERSION = TABLE.getVersion();
+        final ArrayList<CardSet> MOVE = new ArrayList<>();
+        MOVE.add(new CardSet("2s,3s,4s"));
+
+        TABLE.commitMove(MOVE, new CardSet("2s,3s,4s"));
+        assertEquals(START_VERSION + 1, TABLE.getVersion());
+
+        TABLE.setCardSets(MOVE);
+        assertEquals(START_VERSION + 2, TABLE.getVersion());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+package server;
+
+import org.junit.Test;
+import server.models.Player;
+import server.virtualthreads.VirtualThreadSession;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class VirtualThreadTest {
+    private static final ThreadFactory THREAD_FACTORY = Thread.ofVirtual().name("virtual-test-", 0).factory();
+
+    private static String readUntilClosed(SocketChannel client) throws Exception {
+        final ByteArrayOutputStream RECEIVED = new ByteArrayOutputStream();
+        final ByteBuffer BUFFER = ByteBuffer.allocate(4096);
+        while (client.read(BUFFER) != -1) {
+            RECEIVED.write(BUFFER.array(), 0, BUFFER.position());
+            BUFFER.clear();
+        }
+        return RECEIVED.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void closedSessionIsNotSeated() throws Exception {
+        try (ServerSocketChannel SERVER = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0))) {
+            final SocketChannel CLIENT = SocketChannel.open(SERVER.getLocalAddress());
+            final VirtualThreadSession SESSION = new VirtualThreadSession(SERVER.accept(), THREAD_FACTORY);
+            SESSION.close();
+
+            assertFalse(SESSION.seatPlayer(new Player(0, "Player0")));
+            assertNull(SESSION.getPlayer());
+            assertEquals(-1, CLIENT.read(ByteBuffer.allocate(1)));
+            CLIENT.close();
+        }
+    }
+
+    @Test
+    public void buffersSentAroundTheCloseAreReleased() throws Exception {
+        final int SENDERS = 4;
+        final int SENDS_AFTER_CLOSE = 1000;
+        final BufferPool POOL = new BufferPool();
+        try (ServerSocketChannel SERVER = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0))) {
+            final SocketChannel CLIENT = SocketChannel.open(SERVER.getLocalAddress());
+            final SocketChannel ACCEPTED = SERVER.accept();
+            final VirtualThreadSession SESSION = new VirtualThreadSession(ACCEPTED, THREAD_FACTORY);
+            SESSION.start();
+
+            // The senders keep going past the close, so some of them race it.
+            final CountDownLatch STARTED = new CountDownLatch(SENDERS);
+            final Thread[] THREADS = new Thread[SENDERS];
+            for (int i = 0; i < SENDERS; i++) {
+                THREADS[i] = new Thread(() -> {
+                    STARTED.countDown();
+                    int sendsAfterClose = 0;
+                    while (sendsAfterClose < SENDS_AFTER_CLOSE) {
+                        final SharedBuffer SHARED = SharedBuffer.encode("PING|", POOL);
+                        SESSION.send(SHARED);
+                        SHARED.release();
+                        if (!ACCEPTED.isOpen()) {
+                            sendsAfterClose++;
+                        }
+                    }
+                });
+                THREADS[i].start();
+            }
+            assertTrue(STARTED.await(5, TimeUnit.SECONDS));
+            SESSION.close();
+            for (Thread thread : THREADS) {
+                thread.join(5000);
+                assertFalse(thread.isAlive());
+            }
+
+            // The writer gives back the batch it was writing once it has stopped.
+            final long DEADLINE = System.currentTimeMillis() + 5000;
+            while (POOL.inUseBufferCount() > 0 && System.currentTimeMillis() < DEADLINE) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, POOL.inUseBufferCount());
+            assertEquals(0, SESSION.queuedByteCount());
+            CLIENT.close();
+        }
+    }
+
+    @Test
+    public void slowClientOnlyGetsTheLatestTable() throws Exception {
+        final int HIGH_WATERMARK = 1024 * 1024;
+        final char[] TABLE = new char[4000];
+        try (ServerSocketChannel SERVER = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0))) {
+            final SocketChannel CLIENT = SocketChannel.open(SERVER.getLocalAddress());
+            CLIENT.setOption(StandardSocketOptions.SO_RCVBUF, 4096);
+            final SocketChannel ACCEPTED = SERVER.accept();
+            ACCEPTED.setOption(StandardSocketOptions.SO_SNDBUF, 4096);
+            final VirtualThreadSession SESSION = new VirtualThreadSession(ACCEPTED, THREAD_FACTORY,
+                    new OutboundLimits(HIGH_WATERMARK, HIGH_WATERMARK / 4, OutboundLimits.SlowClientPolicy.DROP_STALE_TABLE));
+            SESSION.start();
+
+            // The client never reads, the writer soon blocks on a batch and the rest stays queued.
+            for (int i = 0; i < 5000; i++) {
+                Arrays.fill(TABLE, (char) ('a' + i % 26));
+                final SharedBuffer SHARED = SharedBuffer.encodeTableState(new String(TABLE));
+                SESSION.send(SHARED);
+                SHARED.release();
+                assertTrue(SESSION.queuedByteCount() <= HIGH_WATERMARK);
+            }
+            assertTrue(ACCEPTED.isOpen());
+            assertTrue(SESSION.droppedBufferCount() > 0);
+
+            // Nothing can be dropped to make room for other commands.
+            SESSION.send(ByteBuffer.allocate(HIGH_WATERMARK));
+            assertFalse(ACCEPTED.isOpen());
+            CLIENT.close();
+        }
+    }
+
+    @Test
+    public void gatheringWritesKeepCommandsWholeAndInOrder() throws Exception {
+        final int SENDERS = 8;
+        final int COMMANDS_PER_SENDER = 100;
+        final int BLOCKING_SIZE = 1024 * 1024;
+        try (ServerSocketChannel SERVER = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0))) {
+            final SocketChannel CLIENT = SocketChannel.open(SERVER.getLocalAddress());
+            final VirtualThreadSession SESSION = new VirtualThreadSession(SERVER.accept(), THREAD_FACTORY,
+                    new OutboundLimits(4 * BLOCKING_SIZE, 0, OutboundLimits.SlowClientPolicy.DISCONNECT));
+            SESSION.start();
+
+            // Far more than the socket buffers hold, the writer blocks on it until the client reads.
+            SESSION.send(ByteBuffer.allocate(BLOCKING_SIZE));
+            final Thread[] THREADS = new Thread[SENDERS];
+            for (int i = 0; i < SENDERS; i++) {
+                final int SENDER = i;
+                THREADS[i] = new Thread(() -> {
+                    for (int j = 0; j < COMMANDS_PER_SENDER; j++) {
+                        ClientMessageSender.sendCommand(SESSION, "PING&" + SENDER + "&" + j + "|");
+                    }
+                });
+                THREADS[i].start();
+            }
+            for (Thread thread : THREADS) {
+                thread.join(5000);
+                assertFalse(thread.isAlive());
+            }
+            SESSION.closeWhenSent();
+
+            final String RECEIVED = readUntilClosed(CLIENT);
+            final String[] COMMANDS = RECEIVED.substring(BLOCKING_SIZE).split("\\|");
+            assertEquals(SENDERS * COMMANDS_PER_SENDER, COMMANDS.length);
+            final int[] NEXT = new int[SENDERS];
+            for (String command : COMMANDS) {
+                final String[] PARAMETERS = command.split("&");
+                assertEquals("PING", PARAMETERS[0]);
+                final int SENDER = Integer.parseInt(PARAMETERS[1]);
+                assertEquals(NEXT[SENDER]++, Integer.parseInt(PARAMETERS[2]));
+            }
+
+            // Everything queued behind the blocked write went out in a few gathering writes.
+            assertEquals(1 + SENDERS * COMMANDS_PER_SENDER, SESSION.sentBufferCount());
+            assertTrue(SESSION.writeCount() < SESSION.sentBufferCount() / 10);
+            CLIENT.close();
+        }
+    }
+
+    @Test
+    public void closeWhenSentSendsWhatIsQueuedFirst() throws Exception {
+        try (ServerSocketChannel SERVER = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0))) {
+            final SocketChannel CLIENT = SocketChannel.open(SERVER.getLocalAddress());
+            final VirtualThreadSession SESSION = new VirtualThreadSession(SERVER.accept(), THREAD_FACTORY);
+            SESSION.start();
+
+            ClientMessageSender.sendCommand(SESSION, "WHO_ARE_YOU|");
+            ClientMessageSender.sendCommand(SESSION, "TABLE_IS_FULL|");
+            SESSION.closeWhenSent();
+
+            assertEquals("WHO_ARE_YOU|TABLE_IS_FULL|", readUntilClosed(CLIENT));
+            assertEquals(0, SESSION.queuedByteCount());
+            CLIENT.close();
+        }
+    }
+}
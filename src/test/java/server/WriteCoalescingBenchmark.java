@@ -0,0 +1,152 @@
+package server;
+
+import server.models.Machiavelli;
+import server.models.Player;
+import server.reactor.ClientSession;
+import utils.constants;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Counts the write system calls a reactive table makes per turn.
+ * Every pass sends each player a DrawCard and a SwitchTurn. Run on the game loop, the commands of a pass are
+ * flushed with one gathering write per connection; called from outside a game loop, every command is written
+ * on its own, as all of them used to be.
+ * Not a unit test, run it with:
+ * <pre>
+ * java -cp target/classes:target/test-classes server.WriteCoalescingBenchmark
+ * </pre>
+ */
+public class WriteCoalescingBenchmark {
+    private static final int PLAYERS_PER_TABLE = 4;
+    private static final int PASSES_PER_GAME = 40;
+    private static final int GAMES = 50;
+
+    public static void main(String[] args) throws Exception {
+        // The server prints every command it receives.
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+        Logger.getLogger(String.valueOf(Machiavelli.class)).setLevel(Level.WARNING);
+
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress("localhost", 0));
+            out.println(report("one write per command", run(server, false)));
+            out.println(report("coalesced on the game loop", run(server, true)));
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * @param label
+     * @param counts buffers sent and writes made.
+     * @return
+     */
+    private static String report(String label, long[] counts) {
+        double passes = (double) GAMES * PASSES_PER_GAME;
+        return String.format("%-28s %6d commands, %6d writes, %5.2f writes per pass per player",
+                label, counts[0], counts[1], counts[1] / passes / PLAYERS_PER_TABLE);
+    }
+
+    /**
+     * @param server
+     * @param onGameLoop
+     * @return buffers sent and writes made during the passes.
+     */
+    private static long[] run(ServerSocketChannel server, boolean onGameLoop) throws Exception {
+        long sent = 0;
+        long writes = 0;
+        for (int g = 0; g < GAMES; g++) {
+            Machiavelli game = new Machiavelli(g, PLAYERS_PER_TABLE, g);
+            List<ClientSession> sessions = new ArrayList<>();
+            List<SocketChannel> clients = new ArrayList<>();
+            for (int i = 0; i < PLAYERS_PER_TABLE; i++) {
+                SocketChannel client = SocketChannel.open(server.getLocalAddress());
+                SocketChannel accepted = server.accept();
+                accepted.configureBlocking(false);
+                clients.add(client);
+                drain(client);
+
+                ClientSession session = new ClientSession(accepted);
+                Player player = game.addPlayer();
+                session.seatPlayer(player);
+                ClientMessageSender.getInstance().registerPlayer(player, session);
+                game.introducePlayer(player, constants.GameMode.REACTIVE);
+                sessions.add(session);
+            }
+            game.startGame();
+
+            long sentBefore = 0;
+            long writesBefore = 0;
+            for (ClientSession session : sessions) {
+                sentBefore += session.sentBufferCount();
+                writesBefore += session.writeCount();
+            }
+
+            // Only the player on turn may pass.
+            for (int pass = 0; pass < PASSES_PER_GAME; pass++) {
+                if (onGameLoop) {
+                    game.submit(() -> game.passTurn(game.getCurrentPlayer()));
+                } else {
+                    game.passTurn(game.getCurrentPlayer());
+                }
+            }
+            // Runs once the last pass has been flushed.
+            CountDownLatch done = new CountDownLatch(1);
+            game.submit(done::countDown);
+            done.await();
+
+            for (ClientSession session : sessions) {
+                sent += session.sentBufferCount();
+                writes += session.writeCount();
+                ClientMessageSender.getInstance().removePlayer(session.getPlayer());
+                session.getChannel().close();
+            }
+            sent -= sentBefore;
+            writes -= writesBefore;
+            for (SocketChannel client : clients) {
+                client.close();
+            }
+        }
+        return new long[]{sent, writes};
+    }
+
+    /**
+     * Keeps reading so that the server never waits for a client.
+     *
+     * @param client
+     */
+    private static void drain(SocketChannel client) {
+        Thread reader = new Thread(() -> {
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            try {
+                while (client.read(buffer) >= 0) {
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                // Closed at the end of the game.
+            }
+        });
+        reader.setDaemon(true);
+        reader.start();
+    }
+}
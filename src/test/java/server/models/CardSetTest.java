@@ -1,5 +1,7 @@
 package server.models;
 
+import server.models.cards.Card;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 
@@ -107,6 +109,10 @@ class CardSetTest {
         checkEquals("2s,3s,4s", "2s,4s,3s", true);
         checkEquals("2s,3s,4s", "2s,3s,4c", false);
         checkEquals("2s,3s,4s", "2s,3s", false);
+        checkEquals("2s,2s,3s", "3s,2s,2s", true);
+        checkEquals("2s,2s,3s", "2s,3s,3s", false);
+        checkEquals("hidden,hidden", "hidden,hidden", true);
+        checkEquals("hidden,2s", "2s,3s", false);
     }
 
     private void checkSuperSet(String set1, String set2, boolean expected) {
@@ -124,6 +130,8 @@ class CardSetTest {
         checkSuperSet("2s,3s,4s,5s", "2s,3s,4s,5s,6s", false);
         checkSuperSet("2s,3s,4s,5s", "2s,3s,4s,5d,", false);
         checkSuperSet("2s,3s,4s,5s", "2s,3s,4d", false);
+        checkSuperSet("2s,2s,3s", "2s,2s", true);
+        checkSuperSet("2s,3s", "2s,2s", false);
     }
 
     private void checkDiff(String set1, String set2, String expected) {
@@ -143,6 +151,56 @@ class CardSetTest {
         checkDiff("2s,3s,4s,5s", "2s,3s", "4s,5s");
 
         checkDiff("2s,2s,3s", "2s,3s", "2s");
+        checkDiff("hidden,hidden,2s", "hidden", "hidden,2s");
+    }
+
+    private void checkRemoveCards(String set1, String set2, String expected) {
+        CardSet s1 = new CardSet(set1);
+        s1.removeCards(new CardSet(set2));
+        assertEquals(expected, s1.toString());
+        assertEquals(new CardSet(expected), s1);
+    }
+
+    @org.junit.jupiter.api.Test
+    void removeCards() {
+        checkRemoveCards("5s,2s,3s,2s,4s", "2s,4s", "5s,3s,2s");
+        checkRemoveCards("5s,2s,3s", "2s,2s,6s", "5s,3s");
+        checkRemoveCards("2s,hidden", "hidden", "2s");
+    }
+
+    @org.junit.jupiter.api.Test
+    void removeAllCards() {
+        CardSet set = new CardSet("5s,2s,3s,2s,hidden");
+        set.removeAllCards();
+
+        assertEquals(0, set.totalCount());
+        assertEquals("", set.toString());
+        assertEquals(new CardSet(), set);
+
+        set.addCard(Card.fromString("7h"));
+        assertEquals(new CardSet("7h"), set);
+    }
+
+    @org.junit.jupiter.api.Test
+    void getPointValue() {
+        CardSet set = new CardSet("2s,10d,kh,as,joker,hidden");
+        assertEquals(2 + 10 + 10 + 15 + 20, set.getPointValue());
+
+        set.removeCard(Card.fromString("kh"));
+        set.addCard(Card.fromString("5c"));
+        assertEquals(2 + 10 + 5 + 15 + 20, set.getPointValue());
+
+        set.removeCards(new CardSet("as,joker,3c"));
+        assertEquals(2 + 10 + 5, set.getPointValue());
+
+        set.removeCard(Card.fromString("9h"));
+        assertEquals(2 + 10 + 5, set.getPointValue());
+        assertEquals(new CardSet("2s,10d,5c,hidden").getPointValue(), set.getPointValue());
+
+        assertEquals(2 + 10 + 5, new CardSet(new PackedCardSet(new CardSet("2s,10d,5c"))).getPointValue());
+
+        set.removeAllCards();
+        assertEquals(0, set.getPointValue());
     }
 
 
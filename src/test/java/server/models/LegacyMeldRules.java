@@ -0,0 +1,89 @@
+package server.models;
+
+import server.models.cards.Ace;
+import server.models.cards.Card;
+import server.models.cards.Suit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The list and hash map based rules CardSet used before MeldValidator: cards kept in lists and indexed by suit and
+ * by rank as they are added, the cards sorted before every check the way every parsed set was sorted once.
+ */
+final class LegacyMeldRules {
+    private final int totalCount;
+    private final List<Card> cards = new ArrayList<>();
+    private final Map<Suit, List<Card>> suitCardMap = new HashMap<>();
+    private final Map<Integer, List<Card>> rankCardMap = new HashMap<>();
+    private int jokerCount;
+
+    /**
+     * CONSTRUCTOR
+     *
+     * @param meld
+     */
+    LegacyMeldRules(List<Card> meld) {
+        totalCount = meld.size();
+        for (Card card : meld) {
+            if (card.isJoker()) {
+                jokerCount++;
+                continue;
+            }
+            suitCardMap.computeIfAbsent(card.getSuit(), suit -> new ArrayList<>()).add(card);
+            rankCardMap.computeIfAbsent(card.getRank(), rank -> new ArrayList<>()).add(card);
+            cards.add(card);
+        }
+    }
+
+    /**
+     * @param meld
+     * @param minSetSize
+     * @return
+     */
+    static boolean isAValidMeld(List<Card> meld, int minSetSize) {
+        return new LegacyMeldRules(meld).isAValidMeld(minSetSize);
+    }
+
+    /**
+     * @param minSetSize
+     * @return
+     */
+    boolean isAValidMeld(int minSetSize) {
+        if (totalCount == 0) {
+            return true;
+        }
+        if (totalCount < minSetSize) {
+            return false;
+        }
+        if (totalCount == 1) {
+            return true;
+        }
+        if (totalCount > 14 || jokerCount > 1) {
+            return false;
+        }
+        Collections.sort(cards);
+        return isASet() || isAStraight();
+    }
+
+    /****** PRIVATES ******/
+
+    private boolean isASet() {
+        return totalCount <= 4 && suitCardMap.size() == cards.size() && rankCardMap.size() <= 1;
+    }
+
+    private boolean isAStraight() {
+        if (suitCardMap.size() > 1 || rankCardMap.size() != cards.size()) {
+            return false;
+        }
+
+        int rankDifference = cards.get(cards.size() - 1).getRank() - cards.get(0).getRank();
+        if (cards.get(0) instanceof Ace) {
+            rankDifference = Math.min(rankDifference, 14 - cards.get(1).getRank());
+        }
+        return rankDifference - (cards.size() - 1) <= jokerCount;
+    }
+}
@@ -0,0 +1,135 @@
+package server.models;
+
+import server.models.cards.Card;
+import server.models.cards.CardRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+/**
+ * Compares the single probe MeldTable lookup with the rules it replaced: the list based CardSet rules the game
+ * started with, and the MeldValidator that CardSet.isASet()/isAStraight() go through now.
+ * Not a unit test, run it with:
+ * <pre>
+ * java -cp target/classes:target/test-classes server.models.MeldTableBenchmark
+ * </pre>
+ */
+public class MeldTableBenchmark {
+    private static final int SAMPLE_COUNT = 4096;
+    private static final int ROUNDS = 2000;
+    private static final int WARMUP_ROUNDS = 500;
+
+    public static void main(String[] args) {
+        System.out.println("Legal melds in table: " + MeldTable.size());
+
+        CardSet[] sets = generateSamples();
+        LegacyMeldRules[] legacyRules = new LegacyMeldRules[SAMPLE_COUNT];
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            legacyRules[i] = new LegacyMeldRules(sets[i].getCards());
+        }
+        long[] firstLayers = new long[SAMPLE_COUNT];
+        long[] secondLayers = new long[SAMPLE_COUNT];
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            PackedCardSet packed = new PackedCardSet(sets[i]);
+            firstLayers[i] = packed.getFirstLayer();
+            secondLayers[i] = packed.getSecondLayer();
+        }
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            runListRules(legacyRules);
+            runSetOrStraight(sets);
+            runValidator(firstLayers, secondLayers);
+            runTable(firstLayers, secondLayers);
+        }
+
+        report("List based rules (before MeldValidator)", () -> runListRules(legacyRules));
+        report("CardSet.isASet() || isAStraight()", () -> runSetOrStraight(sets));
+        report("MeldValidator.isAValidMeld", () -> runValidator(firstLayers, secondLayers));
+        report("MeldTable.isAValidMeld", () -> runTable(firstLayers, secondLayers));
+    }
+
+    /**
+     * Half of the samples are legal melds, the other half are random cards of one or two suits.
+     *
+     * @return
+     */
+    private static CardSet[] generateSamples() {
+        Random random = new Random(2019);
+        CardSet[] sets = new CardSet[SAMPLE_COUNT];
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            List<Card> cards = new ArrayList<>();
+            int suit = random.nextInt(CardRegistry.SUIT_COUNT);
+            int length = 3 + random.nextInt(6);
+            if (i % 2 == 0) {
+                int start = random.nextInt(CardRegistry.RANKS_PER_SUIT - length + 1);
+                for (int rank = start; rank < start + length; rank++) {
+                    cards.add(CardRegistry.get(suit * CardRegistry.RANKS_PER_SUIT + rank));
+                }
+            } else {
+                while (cards.size() < length) {
+                    int cardSuit = random.nextBoolean() ? suit : (suit + 1) % CardRegistry.SUIT_COUNT;
+                    Card card = CardRegistry.get(cardSuit * CardRegistry.RANKS_PER_SUIT + random.nextInt(CardRegistry.RANKS_PER_SUIT));
+                    if (Collections.frequency(cards, card) < PackedCardSet.MAX_COPIES) {
+                        cards.add(card);
+                    }
+                }
+            }
+            sets[i] = new CardSet(cards);
+        }
+        return sets;
+    }
+
+    private static int runListRules(LegacyMeldRules[] melds) {
+        int valid = 0;
+        for (LegacyMeldRules meld : melds) {
+            if (meld.isAValidMeld(3)) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    private static int runSetOrStraight(CardSet[] sets) {
+        int valid = 0;
+        for (CardSet set : sets) {
+            if (set.isASet() || set.isAStraight()) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    private static int runValidator(long[] firstLayers, long[] secondLayers) {
+        int valid = 0;
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            if (MeldValidator.isAValidMeld(firstLayers[i], secondLayers[i], 3)) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    private static int runTable(long[] firstLayers, long[] secondLayers) {
+        int valid = 0;
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            if (MeldTable.isAValidMeld(firstLayers[i], secondLayers[i], 3)) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    private static void report(String name, IntSupplier run) {
+        long valid = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            valid += run.getAsInt();
+        }
+        long elapsed = System.nanoTime() - start;
+        double nanosPerCheck = (double) elapsed / ((long) ROUNDS * SAMPLE_COUNT);
+        System.out.printf("%-40s %8.2f ns/check (%d valid)%n", name, nanosPerCheck, valid);
+    }
+}
@@ -0,0 +1,69 @@
+package server.models;
+
+import server.models.cards.CardRegistry;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class MeldTableTest {
+
+    private void checkIsAValidMeld(String setText, boolean expected) {
+        PackedCardSet set = new PackedCardSet(new CardSet(setText));
+        assertEquals(expected, MeldTable.isAValidMeld(set.getFirstLayer(), set.getSecondLayer(), 3), setText);
+    }
+
+    @org.junit.jupiter.api.Test
+    void isAValidMeld() {
+        checkIsAValidMeld("", true);
+        checkIsAValidMeld("2s,2d,2h", true);
+        checkIsAValidMeld("2s,2d,2h,joker", true);
+        checkIsAValidMeld("qs,ks,as", true);
+        checkIsAValidMeld("as,2s,joker,4s", true);
+        checkIsAValidMeld("10s,js,qs,ks,as", true);
+
+        checkIsAValidMeld("2s,2d", false);
+        checkIsAValidMeld("2s,2d,2h,2h", false);
+        checkIsAValidMeld("2s,3s,joker,joker", false);
+        checkIsAValidMeld("ks,as,2s", false);
+        checkIsAValidMeld("2s,3s,4d", false);
+    }
+
+    /**
+     * Every single-suit combination of ranks and every combination of suits of a rank, with and without jokers,
+     * must get the same answer from the table and the validator.
+     */
+    @org.junit.jupiter.api.Test
+    void agreesWithValidator() {
+        long joker = 1L << CardRegistry.JOKER_CODE;
+        int valid = 0;
+
+        for (int suit = 0; suit < CardRegistry.SUIT_COUNT; suit++) {
+            for (long ranks = 0; ranks < (1L << CardRegistry.RANKS_PER_SUIT); ranks++) {
+                long first = ranks << (suit * CardRegistry.RANKS_PER_SUIT);
+                valid += check(first, 0) + check(first | joker, 0) + check(first | joker, joker);
+            }
+        }
+
+        Random random = new Random(7);
+        for (int i = 0; i < 200000; i++) {
+            long first = random.nextLong() & random.nextLong() & random.nextLong() & ((joker << 1) - 1);
+            check(first, 0);
+            check(first, first & random.nextLong());
+        }
+
+        assertTrue(valid > 1000);
+        assertFalse(MeldTable.contains(0));
+    }
+
+    private int check(long first, long second) {
+        for (int minSetSize = 1; minSetSize <= 3; minSetSize++) {
+            assertEquals(MeldValidator.isAValidMeld(first, second, minSetSize),
+                    MeldTable.isAValidMeld(first, second, minSetSize));
+        }
+        return MeldValidator.isAValidMeld(first, second, 1) ? 1 : 0;
+    }
+}
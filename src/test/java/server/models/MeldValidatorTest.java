@@ -0,0 +1,106 @@
+package server.models;
+
+import server.models.cards.Card;
+import server.models.cards.CardRegistry;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class MeldValidatorTest {
+    private static final int[] MIN_SET_SIZES = {1, 3};
+
+    private int[] codes = new int[16];
+    private int length;
+    private int checked;
+
+    /**
+     * Every multiset of up to 4 cards from the double deck.
+     * That covers all the sets and short straights together with their invalid neighbours.
+     */
+    @org.junit.jupiter.api.Test
+    void agreesOnAllSmallMelds() {
+        length = 0;
+        checked = 0;
+        enumerate(0, 4);
+        assertTrue(checked > 300000);
+    }
+
+    /**
+     * Every combination of ranks within a suit, with up to two jokers.
+     * That covers all the straights up to the maximum meld size.
+     */
+    @org.junit.jupiter.api.Test
+    void agreesOnAllSingleSuitMelds() {
+        for (int suit = 0; suit < CardRegistry.SUIT_COUNT; suit++) {
+            for (int ranks = 1; ranks < (1 << CardRegistry.RANKS_PER_SUIT); ranks++) {
+                for (int jokers = 0; jokers <= 2; jokers++) {
+                    length = 0;
+                    for (int rank = 0; rank < CardRegistry.RANKS_PER_SUIT; rank++) {
+                        if ((ranks & (1 << rank)) != 0) {
+                            codes[length++] = suit * CardRegistry.RANKS_PER_SUIT + rank;
+                        }
+                    }
+                    for (int joker = 0; joker < jokers; joker++) {
+                        codes[length++] = CardRegistry.JOKER_CODE;
+                    }
+                    check();
+                }
+            }
+        }
+    }
+
+    @org.junit.jupiter.api.Test
+    void agreesOnRandomMelds() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            length = 2 + random.nextInt(13);
+            int[] copies = new int[CardRegistry.CODE_COUNT];
+            for (int c = 0; c < length; c++) {
+                int code;
+                do {
+                    code = random.nextInt(CardRegistry.CODE_COUNT);
+                } while (copies[code] == PackedCardSet.MAX_COPIES);
+                copies[code]++;
+                codes[c] = code;
+            }
+            check();
+        }
+    }
+
+    private void enumerate(int fromCode, int remaining) {
+        if (length > 0) {
+            check();
+        }
+        if (remaining == 0) {
+            return;
+        }
+        for (int code = fromCode; code < CardRegistry.CODE_COUNT; code++) {
+            codes[length++] = code;
+            enumerate(code + 1, remaining - 1);
+            if (remaining >= 2) {
+                codes[length++] = code;
+                enumerate(code + 1, remaining - 2);
+                length--;
+            }
+            length--;
+        }
+    }
+
+    private void check() {
+        List<Card> cards = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            cards.add(CardRegistry.get(codes[i]));
+        }
+        CardSet set = new CardSet(cards);
+
+        for (int minSetSize : MIN_SET_SIZES) {
+            boolean expected = LegacyMeldRules.isAValidMeld(cards, minSetSize);
+            assertEquals(expected, MeldValidator.isAValidMeld(codes, length, minSetSize), cards::toString);
+            assertEquals(expected, set.isAValidMeld(minSetSize), cards::toString);
+        }
+        checked++;
+    }
+}
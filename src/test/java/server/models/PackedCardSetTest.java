@@ -0,0 +1,74 @@
+package server.models;
+
+import server.models.cards.Card;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class PackedCardSetTest {
+
+    private PackedCardSet packed(String setText) {
+        return new PackedCardSet(new CardSet(setText));
+    }
+
+    @org.junit.jupiter.api.Test
+    void addCard() {
+        PackedCardSet set = packed("2s,2s,joker");
+        assertEquals(3, set.totalCount());
+        assertEquals(1, set.jokerCount());
+        assertThrows(IllegalArgumentException.class, () -> set.addCard(Card.fromString("2s")));
+    }
+
+    @org.junit.jupiter.api.Test
+    void removeCard() {
+        PackedCardSet set = packed("2s,2s,3s");
+        assertTrue(set.removeCard(Card.fromString("2s")));
+        assertTrue(set.removeCard(Card.fromString("2s")));
+        assertFalse(set.removeCard(Card.fromString("2s")));
+        assertEquals("3s", set.toString());
+    }
+
+    @org.junit.jupiter.api.Test
+    void getCards() {
+        assertEquals("as,2d,3s,3s,joker", packed("joker,3s,as,2d,3s").toString());
+    }
+
+    @org.junit.jupiter.api.Test
+    void join() {
+        PackedCardSet set = packed("2s,3s");
+        set.join(packed("2s,4s"));
+        assertEquals(packed("2s,2s,3s,4s"), set);
+        assertThrows(IllegalArgumentException.class, () -> set.join(packed("2s")));
+    }
+
+    @org.junit.jupiter.api.Test
+    void equals() {
+        assertEquals(packed("2s,3s,4s"), packed("4s,2s,3s"));
+        assertNotEquals(packed("2s,3s,4s"), packed("2s,3s,4c"));
+        assertNotEquals(packed("2s,2s,3s"), packed("2s,3s"));
+    }
+
+    @org.junit.jupiter.api.Test
+    void superSetOf() {
+        assertTrue(packed("2s,3s,4s,5s").superSetOf(packed("2s,3s,4s,5s")));
+        assertTrue(packed("2s,3s,4s,5s").superSetOf(packed("2s")));
+        assertTrue(packed("2s,2s,3s").superSetOf(packed("2s,2s")));
+
+        assertFalse(packed("2s,3s,4s,5s").superSetOf(packed("2s,3s,4s,5s,6s")));
+        assertFalse(packed("2s,3s").superSetOf(packed("2s,2s")));
+    }
+
+    @org.junit.jupiter.api.Test
+    void diff() {
+        assertEquals("", packed("2s,3s,4s,5s").diff(packed("2s,3s,4s,5s,6s")).toString());
+        assertEquals("5s", packed("2s,3s,4s,5s").diff(packed("2s,3s,4s,5c")).toString());
+        assertEquals("2s", packed("2s,2s,3s").diff(packed("2s,3s")).toString());
+        assertEquals("2s,2s", packed("2s,2s,3s").diff(packed("3s")).toString());
+    }
+
+    @org.junit.jupiter.api.Test
+    void getPointValue() {
+        assertEquals(0, packed("").getPointValue());
+        assertEquals(2 + 2 + 10 + 15 + 20 + 20, packed("2s,2s,jc,ah,joker,joker").getPointValue());
+    }
+}
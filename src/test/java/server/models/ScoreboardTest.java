@@ -0,0 +1,53 @@
+package server.models;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class ScoreboardTest {
+
+    private Player player(int id, String hand) {
+        Player player = new Player(id, "player" + id);
+        player.setHand(new CardSet(hand));
+        return player;
+    }
+
+    @org.junit.jupiter.api.Test
+    void recordGame() {
+        Scoreboard scoreboard = new Scoreboard();
+        Player winner = player(0, "");
+        Player second = player(1, "3h,kd");
+        Player third = player(2, "as,joker");
+        List<Player> players = Arrays.asList(winner, second, third);
+
+        assertEquals(13, scoreboard.getHandPenalty(second));
+        scoreboard.recordGame(winner, players);
+
+        assertEquals(1, scoreboard.getGamesPlayed());
+        assertSame(winner, scoreboard.getLastWinner());
+        assertEquals(Integer.valueOf(0), scoreboard.getLastResults().get(winner));
+        assertEquals(Integer.valueOf(13), scoreboard.getLastResults().get(second));
+        assertEquals(Integer.valueOf(35), scoreboard.getLastResults().get(third));
+        assertEquals(Arrays.asList(winner, second, third), scoreboard.getLeaderboard(players));
+    }
+
+    @org.junit.jupiter.api.Test
+    void matchTotalsAddUp() {
+        Scoreboard scoreboard = new Scoreboard();
+        Player first = player(0, "");
+        Player second = player(1, "5c");
+        List<Player> players = Arrays.asList(first, second);
+        scoreboard.recordGame(first, players);
+
+        first.setHand(new CardSet("qs,qh"));
+        second.setHand(new CardSet(""));
+        scoreboard.recordGame(second, players);
+
+        assertEquals(2, scoreboard.getGamesPlayed());
+        assertEquals(20, scoreboard.getMatchTotal(first));
+        assertEquals(5, scoreboard.getMatchTotal(second));
+        assertEquals(Arrays.asList(second, first), scoreboard.getLeaderboard(players));
+    }
+}
@@ -0,0 +1,75 @@
+package server.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+
+/**
+ * Load test for hosting many games in one process.
+ * Every round routes the connections of N full tables through the registry, deals the hands and lets every
+ * player draw cards on the game loops. The time per table should stay flat as N grows.
+ * Not a unit test, run it with:
+ * <pre>
+ * java -cp target/classes:target/test-classes server.models.TableRegistryBenchmark
+ * </pre>
+ */
+public class TableRegistryBenchmark {
+    private static final int PLAYERS_PER_TABLE = 4;
+    private static final int PASSES_PER_PLAYER = 10;
+    private static final int[] TABLE_COUNTS = {500, 1000, 2000, 4000, 8000, 16000};
+    private static final int WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args) throws InterruptedException {
+        // One seed line per game would drown the results.
+        Machiavelli.log.setLevel(Level.WARNING);
+        System.out.println("Game loop threads: " + Runtime.getRuntime().availableProcessors());
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            run(TABLE_COUNTS[TABLE_COUNTS.length - 1]);
+        }
+
+        for (int tableCount : TABLE_COUNTS) {
+            long elapsed = run(tableCount);
+            System.out.printf("%6d tables: %8.1f ms, %6.1f us per table%n",
+                    tableCount, elapsed / 1e6, elapsed / 1e3 / tableCount);
+        }
+    }
+
+    /**
+     * @param tableCount
+     * @return elapsed nanoseconds.
+     */
+    private static long run(int tableCount) throws InterruptedException {
+        TableRegistry registry = new TableRegistry();
+        registry.initialize(PLAYERS_PER_TABLE);
+        CountDownLatch done = new CountDownLatch(tableCount);
+
+        long start = System.nanoTime();
+        List<Machiavelli> games = new ArrayList<>(tableCount);
+        for (int connection = 0; connection < tableCount * PLAYERS_PER_TABLE; connection++) {
+            Machiavelli game = registry.routeConnection();
+            game.submit(game::addPlayer);
+            if (games.isEmpty() || games.get(games.size() - 1) != game) {
+                games.add(game);
+            }
+        }
+
+        for (Machiavelli game : games) {
+            game.submit(() -> {
+                game.startGame();
+                for (int pass = 0; pass < PASSES_PER_PLAYER * PLAYERS_PER_TABLE; pass++) {
+                    game.passTurn(game.getCurrentPlayer());
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+
+        if (registry.gameCount() != tableCount) {
+            throw new IllegalStateException("Expected " + tableCount + " games, got " + registry.gameCount());
+        }
+        return elapsed;
+    }
+}
@@ -0,0 +1,97 @@
+package server.models;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class TableRegistryTest {
+
+    private TableRegistry registry(int numOfPlayers) {
+        TableRegistry registry = new TableRegistry();
+        registry.initialize(numOfPlayers);
+        return registry;
+    }
+
+    @org.junit.jupiter.api.Test
+    void routeConnectionFillsTablesInOrder() {
+        TableRegistry registry = registry(2);
+
+        Machiavelli first = registry.routeConnection();
+        assertSame(first, registry.routeConnection());
+
+        Machiavelli second = registry.routeConnection();
+        assertNotSame(first, second);
+        assertSame(second, registry.routeConnection());
+
+        assertEquals(2, registry.gameCount());
+        assertSame(first, registry.getGame(first.getId()));
+        assertSame(second, registry.getGame(second.getId()));
+    }
+
+    @org.junit.jupiter.api.Test
+    void releasedSeatIsRoutedAgain() throws InterruptedException {
+        TableRegistry registry = registry(2);
+        Machiavelli game = registry.routeConnection();
+        registry.routeConnection();
+
+        Player leaving = onGameLoop(game, game::addPlayer);
+        onGameLoop(game, game::addPlayer);
+        onGameLoop(game, () -> {
+            game.playerLeftTheGame(leaving);
+            return null;
+        });
+
+        assertSame(game, registry.routeConnection());
+        assertEquals(1, registry.gameCount());
+    }
+
+    @org.junit.jupiter.api.Test
+    void gameIsRetiredWhenEmpty() throws InterruptedException {
+        TableRegistry registry = registry(2);
+        Machiavelli game = registry.routeConnection();
+
+        Player player = onGameLoop(game, game::addPlayer);
+        assertSame(game, player.getGame());
+        onGameLoop(game, () -> {
+            game.playerLeftTheGame(player);
+            return null;
+        });
+
+        assertEquals(0, registry.gameCount());
+        assertNull(registry.getGame(game.getId()));
+        assertNotSame(game, registry.routeConnection());
+    }
+
+    @org.junit.jupiter.api.Test
+    void cancelledSeatingGivesTheSeatBack() throws InterruptedException {
+        TableRegistry registry = registry(2);
+        Machiavelli game = registry.routeConnection();
+        registry.routeConnection();
+
+        Player seated = onGameLoop(game, game::addPlayer);
+        onGameLoop(game, () -> {
+            game.cancelSeating(game.addPlayer());
+            return null;
+        });
+
+        assertEquals(1, game.reservedSeatCount());
+        assertEquals(1, game.getPlayers().size());
+        assertSame(seated, game.getPlayers().get(0));
+        assertSame(game, registry.routeConnection());
+    }
+
+    private <T> T onGameLoop(Machiavelli game, java.util.function.Supplier<T> task) throws InterruptedException {
+        Object[] result = new Object[1];
+        CountDownLatch done = new CountDownLatch(1);
+        game.submit(() -> {
+            result[0] = task.get();
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        @SuppressWarnings("unchecked")
+        T value = (T) result[0];
+        return value;
+    }
+}
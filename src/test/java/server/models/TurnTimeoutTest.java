@@ -0,0 +1,150 @@
+package server.models;
+
+import commands.server.PlayerMove;
+import utils.constants;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class TurnTimeoutTest {
+
+    @org.junit.jupiter.api.Test
+    void expiredTurnIsPassed() throws InterruptedException {
+        Machiavelli game = new Machiavelli(1, 2, 99L);
+        Player firstPlayer = onGameLoop(game, () -> {
+            game.setTurnTimeLimit(300);
+            for (int i = 0; i < 2; i++) {
+                game.introducePlayer(game.addPlayer(), constants.GameMode.REACTIVE);
+            }
+            game.startGame();
+            return game.getCurrentPlayer();
+        });
+        assertEquals(constants.HAND_SIZE, firstPlayer.getHand().totalCount());
+
+        // Poll well within the time limit, so the next deadline can't pass the turn back unnoticed.
+        long giveUp = System.currentTimeMillis() + 5000;
+        boolean passed = false;
+        while (!passed && System.currentTimeMillis() < giveUp) {
+            Thread.sleep(20);
+            passed = onGameLoop(game, () -> firstPlayer.getHand().totalCount() > constants.HAND_SIZE);
+        }
+        assertTrue(passed);
+
+        // The first player drew a card and the turn moved on.
+        onGameLoop(game, () -> {
+            assertNotSame(firstPlayer, game.getCurrentPlayer());
+            assertEquals(constants.HAND_SIZE + 1, firstPlayer.getHand().totalCount());
+            return null;
+        });
+    }
+
+    @org.junit.jupiter.api.Test
+    void noDeadlineInProactiveMode() throws InterruptedException {
+        Machiavelli game = new Machiavelli(1, 2, 99L);
+        Player firstPlayer = onGameLoop(game, () -> {
+            game.setTurnTimeLimit(50);
+            for (int i = 0; i < 2; i++) {
+                game.introducePlayer(game.addPlayer(), constants.GameMode.PROACTIVE);
+            }
+            game.startGame();
+            return game.getCurrentPlayer();
+        });
+
+        Thread.sleep(250);
+
+        onGameLoop(game, () -> {
+            assertSame(firstPlayer, game.getCurrentPlayer());
+            assertEquals(constants.HAND_SIZE, firstPlayer.getHand().totalCount());
+            return null;
+        });
+    }
+
+    @org.junit.jupiter.api.Test
+    void deadlineQueuedBeforeTheWinningMoveIsIgnored() throws InterruptedException {
+        Machiavelli game = new Machiavelli(1, 2, 99L);
+        Player winner = onGameLoop(game, () -> {
+            game.setTurnTimeLimit(50);
+            for (int i = 0; i < 2; i++) {
+                game.introducePlayer(game.addPlayer(), constants.GameMode.REACTIVE);
+            }
+            game.startGame();
+            Player player = game.getCurrentPlayer();
+
+            // The deadline passes while this task runs, so its expiry is queued behind the winning move.
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            CardSet meld = new CardSet("7c,7d,7h");
+            player.getHand().removeAllCards();
+            player.getHand().join(meld);
+            game.processMove(new PlayerMove(player.getSeatNumber(), 0, meld, Collections.singletonList(meld)));
+            return player;
+        });
+
+        // Long enough for a re-armed deadline to pass the turn several times.
+        Thread.sleep(300);
+
+        onGameLoop(game, () -> {
+            assertEquals(0, winner.getHand().totalCount());
+            assertSame(winner, game.getCurrentPlayer());
+            for (Player player : game.getPlayers()) {
+                if (player != winner) {
+                    assertEquals(constants.HAND_SIZE, player.getHand().totalCount());
+                    // A pass that crossed the win on the way is ignored too.
+                    game.passTurn(player);
+                    assertEquals(constants.HAND_SIZE, player.getHand().totalCount());
+                }
+            }
+            assertSame(winner, game.getCurrentPlayer());
+            return null;
+        });
+    }
+
+    @org.junit.jupiter.api.Test
+    void onlyThePlayerOnTurnCanPass() throws InterruptedException {
+        Machiavelli game = new Machiavelli(1, 2, 99L);
+        onGameLoop(game, () -> {
+            for (int i = 0; i < 2; i++) {
+                game.introducePlayer(game.addPlayer(), constants.GameMode.REACTIVE);
+            }
+            game.startGame();
+            Player firstPlayer = game.getCurrentPlayer();
+            for (Player player : game.getPlayers()) {
+                if (player != firstPlayer) {
+                    game.passTurn(player);
+                    assertEquals(constants.HAND_SIZE, player.getHand().totalCount());
+                }
+            }
+            assertSame(firstPlayer, game.getCurrentPlayer());
+            return null;
+        });
+    }
+
+    private <T> T onGameLoop(Machiavelli game, Supplier<T> task) throws InterruptedException {
+        Object[] result = new Object[1];
+        AssertionError[] failure = new AssertionError[1];
+        CountDownLatch done = new CountDownLatch(1);
+        game.submit(() -> {
+            try {
+                result[0] = task.get();
+            } catch (AssertionError e) {
+                failure[0] = e;
+            }
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        @SuppressWarnings("unchecked")
+        T value = (T) result[0];
+        return value;
+    }
+}
@@ -0,0 +1,66 @@
+package server.models.cards;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CardRegistryTest {
+
+    @Test
+    public void testCodes() {
+        for (int code = 0; code < CardRegistry.CODE_COUNT; code++) {
+            final Card CARD = CardRegistry.get(code);
+
+            assertEquals("getId() != code", code, CARD.getId());
+            assertEquals("codeOf() != code", code, CardRegistry.codeOf(CARD));
+            assertEquals("parse() != code", code, CardRegistry.parse(CARD.toString()));
+            assertSame("fromString() is not the registry card", CARD, Card.fromString(CARD.toString()));
+        }
+    }
+
+    @Test
+    public void testCodeOfNewCards() {
+        assertEquals(CardRegistry.codeOf(Suit.HEARTS, 1), CardRegistry.codeOf(new Ace(Suit.HEARTS, 0)));
+        assertEquals(CardRegistry.codeOf(Suit.CLUBS, 10), CardRegistry.codeOf(new Basic(Suit.CLUBS, 10, 0)));
+        assertEquals(CardRegistry.JOKER_CODE, CardRegistry.codeOf(new Joker(Suit.JOKER, 0)));
+
+        try {
+            CardRegistry.codeOf(HiddenCard.getInstance());
+            fail("Hidden card did not throw an exception");
+        } catch (IllegalArgumentException e) {
+            //passed
+        }
+    }
+
+    @Test
+    public void testParse() {
+        assertEquals(CardRegistry.codeOf(Suit.SPADES, 10), CardRegistry.parse("2s,10s,3s", 3, 6));
+        assertEquals(CardRegistry.INVALID_CODE, CardRegistry.parse("hidden"));
+        assertEquals(CardRegistry.INVALID_CODE, CardRegistry.parse("1s"));
+        assertEquals(CardRegistry.INVALID_CODE, CardRegistry.parse("11s"));
+        assertEquals(CardRegistry.INVALID_CODE, CardRegistry.parse("2x"));
+        assertEquals(CardRegistry.INVALID_CODE, CardRegistry.parse(""));
+        assertSame(HiddenCard.getInstance(), Card.fromString("hidden"));
+    }
+
+    @Test
+    public void testImmutable() {
+        final Card ACE = Card.fromString("as");
+
+        try {
+            ((Ace) ACE).changeRank(14);
+            fail("Registry card rank changed");
+        } catch (UnsupportedOperationException e) {
+            //passed
+        } catch (Card.InvalidCardRankException e) {
+            fail("Unexpected Exception");
+        }
+
+        try {
+            ACE.setSuit(Suit.HEARTS);
+            fail("Registry card suit changed");
+        } catch (UnsupportedOperationException e) {
+            //passed
+        }
+    }
+}